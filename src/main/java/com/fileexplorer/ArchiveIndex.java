@@ -0,0 +1,155 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * ZIP/JAR 压缩包的条目列表。只读取中央目录，不解压任何数据；
+ * 结果按压缩包的大小和修改时间缓存，压缩包未变化时再次搜索不需要重新打开。
+ * 需要搜索内容时，逐个条目经 Inflater 流式解压后交给内容匹配器，不写入磁盘。
+ */
+public final class ArchiveIndex {
+    private static final int MAX_CACHED_ARCHIVES = 256;
+
+    // 超过该大小（解压后）的条目不做内容搜索，解压时也最多读取这么多，防止压缩炸弹
+    static final long MAX_SCANNED_ENTRY_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * 压缩包内的一个文件条目
+     */
+    public static final class Entry {
+        private final String name;
+        private final long size;
+        private final long modifiedMillis;
+
+        Entry(String name, long size, long modifiedMillis) {
+            this.name = name;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+        }
+
+        /**
+         * 压缩包内的完整路径，例如 com/example/App.class
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 条目名称中最后一段的起始位置
+         */
+        public int getNameStart() {
+            return name.lastIndexOf('/') + 1;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getModifiedMillis() {
+            return modifiedMillis;
+        }
+    }
+
+    private static final class Listing {
+        final long size;
+        final long modifiedMillis;
+        final List<Entry> entries;
+
+        Listing(long size, long modifiedMillis, List<Entry> entries) {
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.entries = entries;
+        }
+    }
+
+    private static final Map<Path, Listing> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Listing> eldest) {
+            return size() > MAX_CACHED_ARCHIVES;
+        }
+    };
+
+    private ArchiveIndex() {
+    }
+
+    /**
+     * 是否为可以直接读取中央目录的 ZIP 格式压缩包
+     */
+    public static boolean isZipArchive(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase();
+        return fileName.endsWith(".zip") || fileName.endsWith(".jar") || fileName.endsWith(".war")
+                || fileName.endsWith(".ear");
+    }
+
+    /**
+     * 列出压缩包中的文件条目（不含目录），未变化的压缩包直接使用缓存
+     */
+    public static List<Entry> list(Path archive, BasicFileAttributes attrs) throws IOException {
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+        synchronized (CACHE) {
+            Listing cached = CACHE.get(archive);
+            if (cached != null && cached.size == size && cached.modifiedMillis == modified) {
+                return cached.entries;
+            }
+        }
+
+        // ZipFile 打开时只解析文件末尾的中央目录
+        List<Entry> entries = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            Enumeration<? extends ZipEntry> enumeration = zip.entries();
+            while (enumeration.hasMoreElements()) {
+                ZipEntry entry = enumeration.nextElement();
+                if (!entry.isDirectory()) {
+                    entries.add(new Entry(entry.getName(), entry.getSize(), entry.getTime()));
+                }
+            }
+        }
+
+        List<Entry> listing = Collections.unmodifiableList(entries);
+        synchronized (CACHE) {
+            CACHE.put(archive, new Listing(size, modified, listing));
+        }
+        return listing;
+    }
+
+    /**
+     * 对选出的条目做内容搜索，返回内容匹配的条目；过大的条目被跳过，单个条目损坏不影响其余条目
+     */
+    public static List<Entry> scanContent(Path archive, List<Entry> candidates, ContentMatcher matcher) throws IOException {
+        List<Entry> matched = new ArrayList<>();
+        if (candidates.isEmpty()) {
+            return matched;
+        }
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            for (Entry candidate : candidates) {
+                if (candidate.size > MAX_SCANNED_ENTRY_SIZE) {
+                    continue;
+                }
+                ZipEntry entry = zip.getEntry(candidate.name);
+                if (entry == null) {
+                    continue;
+                }
+                try (InputStream in = zip.getInputStream(entry)) {
+                    if (matcher.matches(in, MAX_SCANNED_ENTRY_SIZE)) {
+                        matched.add(candidate);
+                    }
+                } catch (IOException e) {
+                    System.err.println("读取压缩包条目失败: " + archive + "!/" + candidate.name + " - " + e.getMessage());
+                }
+            }
+        }
+        return matched;
+    }
+}
@@ -5,10 +5,13 @@ import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.LongProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.concurrent.Task;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
+import javafx.scene.control.OverrunStyle;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
@@ -17,7 +20,11 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * 批量文件操作任务，使用统一的线程池管理器
@@ -33,14 +40,52 @@ public class BatchFileOperationTask extends Task<Void> {
     private final List<Path> sourcePaths;
     private final Path targetDir;
     private final Stage ownerStage;
-
+    // 复制和移动的断点日志，程序中途退出后可以恢复
+    private TransferJournal journal;
+    private boolean resumed = false;
+    private FileCopier.Verification verification = FileCopier.Verification.NONE;
+    private boolean sparse = false;
+    // 所有项目共用的复制引擎，汇总整个操作的写入量
+    private FileCopier copier;
+    // 多个目录并发复制时共用的在途文件上限，首次复制目录时按设备确定
+    private Semaphore treeInFlightLimit;
+
+    // 失败项目的说明（包括校验不一致的文件），操作结束后在一个对话框中列出
+    private final Queue<String> failureDetails = new ConcurrentLinkedQueue<>();
+    private static final int MAX_LISTED_FAILURES = 20;
+
+    // 以下属性只在 JavaFX 线程中由进度采样更新，供对话框显示
     private final IntegerProperty completedFiles = new SimpleIntegerProperty(0);
     private final IntegerProperty failedFiles = new SimpleIntegerProperty(0);
     private final LongProperty processedBytes = new SimpleLongProperty(0);
     private final LongProperty totalBytes = new SimpleLongProperty(0);
-
-    // 用于保存提交的任务Future，以便可以取消
-    private final List<Future<?>> submittedTasks = new CopyOnWriteArrayList<>();
+    private final StringProperty speedText = new SimpleStringProperty("--");
+    private final StringProperty etaText = new SimpleStringProperty("--");
+    private final StringProperty currentFileText = new SimpleStringProperty("");
+
+    // 工作线程只更新计数器，由固定频率的采样统一发布到界面
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder bytesDone = new LongAdder();
+    private final LongAdder deletedFiles = new LongAdder();
+    private volatile long totalSize = 0;
+    private volatile Path currentFile;
+
+    // 进度采样：每秒10次；速度按指数移动平均平滑，新样本的权重
+    private static final long TICK_MILLIS = 100;
+    private static final double RATE_SMOOTHING = 0.2;
+    private ScheduledFuture<?> ticker;
+    // 上一次发布的界面更新尚未执行时不再排队新的更新
+    private final AtomicBoolean publishPending = new AtomicBoolean(false);
+    // 以下字段只由采样线程访问
+    private long lastTickNanos = 0;
+    private long lastTickBytes = 0;
+    private long lastTickFiles = 0;
+    private double smoothedByteRate = 0;
+    private double smoothedFileRate = 0;
+
+    // 同时提交到文件操作线程池的项目数上限，略大于线程数，线程空出时总有下一项在排队
+    private static final int IN_FLIGHT_WINDOW = 32;
 
     public BatchFileOperationTask(OperationType type, List<Path> sourcePaths, Path targetDir, Stage ownerStage) {
         this.type = type;
@@ -49,6 +94,30 @@ public class BatchFileOperationTask extends Task<Void> {
         this.ownerStage = ownerStage;
     }
 
+    /**
+     * 恢复上次未完成的复制或移动：已完成的文件跳过，大文件从断点继续
+     */
+    public BatchFileOperationTask(TransferJournal journal, Stage ownerStage) {
+        this(journal.getType(), journal.getSourcePaths(), journal.getTargetDir(), ownerStage);
+        this.journal = journal;
+        this.resumed = true;
+        this.verification = journal.getVerification();
+    }
+
+    /**
+     * 复制和移动时边复制边计算摘要，完成后回读目标文件校验
+     */
+    public void setVerification(FileCopier.Verification verification) {
+        this.verification = verification;
+    }
+
+    /**
+     * 复制时保留稀疏文件的空洞（默认关闭）
+     */
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
     // 添加getter方法用于属性访问
     public IntegerProperty completedFilesProperty() { return completedFiles; }
     public IntegerProperty failedFilesProperty() { return failedFiles; }
@@ -60,24 +129,53 @@ public class BatchFileOperationTask extends Task<Void> {
         ThreadPoolManager threadPoolManager = ThreadPoolManager.getInstance();
 
         try {
-            calculateTotalSize();
+            if (journal == null && type != OperationType.DELETE) {
+                try {
+                    journal = TransferJournal.create(type, sourcePaths, targetDir, verification);
+                } catch (IOException e) {
+                    System.err.println("创建传输日志失败，本次操作不能恢复: " + e.getMessage());
+                }
+            }
+
+            copier = createCopier();
+            ticker = threadPoolManager.getScheduledExecutor().scheduleAtFixedRate(this::publishProgress,
+                    TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+            // 删除不预先统计大小，按项目数显示进度，选中大量项目时立即开始
+            if (type != OperationType.DELETE) {
+                calculateTotalSize();
+            }
 
             if (isCancelled()) return null;
 
-            executeBatchOperation(threadPoolManager);
+            executeBatchOperation();
 
             if (!isCancelled()) {
                 updateMessage("操作完成");
                 updateProgress(1.0, 1.0);
             }
+            // 全部成功后不再需要恢复；有失败的项目或保留了断点的目标文件时保留日志，下次启动时提示恢复
+            if (journal != null && failedCount.sum() == 0 && !journal.hasPartial()) {
+                journal.delete();
+            }
 
         } catch (Exception e) {
             if (!isCancelled()) {
                 throw e;
             }
         } finally {
-            // 取消所有已提交但未完成的任务
-            cancelSubmittedTasks();
+            if (ticker != null) {
+                ticker.cancel(false);
+            }
+            // 最后发布一次，对话框和结果中的计数是准确的最终值
+            publishProgress();
+            // 用户取消时放弃恢复，连同只复制了一部分的目标文件一起删除；其余情况保留，下次启动时提示恢复
+            if (journal != null) {
+                if (isCancelled()) {
+                    journal.discard();
+                } else {
+                    journal.close();
+                }
+            }
         }
 
         return null;
@@ -86,54 +184,72 @@ public class BatchFileOperationTask extends Task<Void> {
     /**
      * 计算所有文件的总大小
      */
-    private void calculateTotalSize() throws IOException, InterruptedException {
+    private void calculateTotalSize() throws InterruptedException {
         updateMessage("正在计算文件总大小...");
 
-        // 使用CompletableFuture并行计算文件大小
-        List<CompletableFuture<Long>> futures = new CopyOnWriteArrayList<>();
-        ExecutorService executor = ThreadPoolManager.getInstance().getFileOperationExecutor();
-
-        for (Path source : sourcePaths) {
-            if (isCancelled()) break;
-
-            CompletableFuture<Long> future = CompletableFuture.supplyAsync(() -> {
-                try {
-                    return calculateFileSize(source);
-                } catch (IOException e) {
-                    return 0L;
-                }
-            }, executor);
-
-            submittedTasks.add(future);
-            futures.add(future);
-        }
-
-        long totalSize = 0;
-        for (CompletableFuture<Long> future : futures) {
-            if (isCancelled()) break;
+        LongAdder sizes = new LongAdder();
+        forEachSource(source -> {
+            // 同一文件系统内的移动只是改名，不需要遍历统计大小
+            if (type == OperationType.MOVE && targetDir != null
+                    && FileMover.isSameFileStore(source, targetDir.resolve(source.getFileName()))) {
+                return;
+            }
             try {
-                totalSize += future.get();
-            } catch (Exception e) {
+                sizes.add(calculateFileSize(source));
+            } catch (IOException e) {
                 // 忽略错误
             }
-        }
+        });
+        long totalSize = sizes.sum();
 
-        // 在JavaFX应用线程上更新属性
+        // 由进度采样发布到界面
         final long finalTotalSize = totalSize;
-        Platform.runLater(() -> {
-            totalBytes.set(finalTotalSize);
-        });
+        this.totalSize = finalTotalSize;
 
         updateMessage(String.format("总大小: %s，准备开始操作...",
                 FileUtils.formatSize(finalTotalSize)));
     }
 
+    /**
+     * 按顺序把每个源路径交给文件操作线程池处理，同时在途的项目不超过 IN_FLIGHT_WINDOW 个：
+     * 窗口满时提交线程等待，排队的任务和簿记与选中的项目数无关。
+     * 取消时不需要逐个取消任务，已排队的项目开始前检查取消标志直接跳过。返回前等待所有在途项目结束
+     */
+    private void forEachSource(Consumer<Path> action) throws InterruptedException {
+        ExecutorService executor = ThreadPoolManager.getInstance().getFileOperationExecutor();
+        Semaphore window = new Semaphore(IN_FLIGHT_WINDOW);
+        try {
+            for (Path source : sourcePaths) {
+                if (isCancelled()) break;
+                window.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            if (!isCancelled()) {
+                                action.accept(source);
+                            }
+                        } finally {
+                            window.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    window.release();
+                    throw e;
+                }
+            }
+        } finally {
+            window.acquireUninterruptibly(IN_FLIGHT_WINDOW);
+            window.release(IN_FLIGHT_WINDOW);
+        }
+    }
+
     /**
      * 计算单个文件/文件夹大小
      */
     private long calculateFileSize(Path path) throws IOException {
         if (Files.isDirectory(path)) {
             final long[] size = {0};
+            WalkPolicy policy = WalkPolicy.forCopy();
             Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
@@ -146,7 +262,7 @@ public class BatchFileOperationTask extends Task<Void> {
 
                 @Override
                 public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                    return isCancelled() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                    return isCancelled() ? FileVisitResult.TERMINATE : policy.checkDirectory(dir, attrs, path);
                 }
             });
             return size[0];
@@ -158,52 +274,24 @@ public class BatchFileOperationTask extends Task<Void> {
     /**
      * 执行批量操作
      */
-    private void executeBatchOperation(ThreadPoolManager threadPoolManager) throws Exception {
+    private void executeBatchOperation() throws InterruptedException {
         updateMessage("开始执行操作...");
 
-        ExecutorService executor = threadPoolManager.getFileOperationExecutor();
-        List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
-
-        for (Path source : sourcePaths) {
-            if (isCancelled()) break;
-
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
-                    executeSingleOperation(source);
-                    Platform.runLater(() -> {
-                        completedFiles.set(completedFiles.get() + 1);
-                    });
-                } catch (Exception e) {
-                    Platform.runLater(() -> {
-                        failedFiles.set(failedFiles.get() + 1);
-                    });
-                    Platform.runLater(() -> {
-                        showWarning("操作失败", "处理文件失败: " + source.getFileName() +
-                                " - " + e.getMessage());
-                    });
-                    throw new CompletionException(e);
-                }
-            }, executor);
-
-            submittedTasks.add(future);
-            futures.add(future);
-        }
-
-        // 等待所有任务完成
-        CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-                futures.toArray(new CompletableFuture[0])
-        );
-
-        try {
-            allFutures.get();
-        } catch (CancellationException e) {
-            // 任务被取消，正常退出
-        } catch (CompletionException e) {
-            // 有任务失败，继续处理其他任务
-        }
+        // 单个项目失败只计入失败列表，其余项目继续
+        forEachSource(source -> {
+            try {
+                executeSingleOperation(source);
+                completedCount.increment();
+            } catch (CancellationException e) {
+                // 用户取消，不完整的目标文件已由复制引擎删除
+            } catch (Exception e) {
+                failedCount.increment();
+                failureDetails.add(source.getFileName() + " - " + e.getMessage());
+            }
+        });
 
         updateMessage(String.format("操作完成。成功: %d, 失败: %d",
-                completedFiles.get(), failedFiles.get()));
+                completedCount.sum(), failedCount.sum()));
     }
 
     /**
@@ -236,72 +324,64 @@ public class BatchFileOperationTask extends Task<Void> {
      */
     private void copyFileOrDirectory(Path source, Path target) throws IOException {
         if (Files.isDirectory(source)) {
-            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (isCancelled()) {
-                        return FileVisitResult.TERMINATE;
-                    }
-
-                    Path targetDir = target.resolve(source.relativize(dir));
-                    if (!Files.exists(targetDir)) {
-                        Files.createDirectories(targetDir);
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    if (isCancelled()) {
-                        return FileVisitResult.TERMINATE;
-                    }
-
-                    Path targetFile = target.resolve(source.relativize(file));
-                    Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
-
-                    // 更新进度
-                    long fileSize = attrs.size();
-                    Platform.runLater(() -> {
-                        processedBytes.set(processedBytes.get() + fileSize);
-                        updateProgressSafe();
-                    });
-
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+            // 目录先按遍历顺序创建，文件由有界的工作线程并行复制
+            TreeCopier treeCopier = new TreeCopier(copier);
+            treeCopier.setCancelCheck(this::isCancelled);
+            treeCopier.setInFlightLimit(getTreeInFlightLimit(source, target));
+            treeCopier.copy(source, target);
+            failureDetails.addAll(treeCopier.getSkipped());
+            List<String> mismatches = treeCopier.getMismatches();
+            if (!mismatches.isEmpty()) {
+                failureDetails.addAll(mismatches);
+                throw new IOException(mismatches.size() + " 个文件校验不一致");
+            }
         } else {
-            long fileSize = Files.size(source);
-            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            copier.copy(source, target);
+        }
+    }
 
-            // 更新进度
-            Platform.runLater(() -> {
-                processedBytes.set(processedBytes.get() + fileSize);
-                updateProgressSafe();
-            });
+    /**
+     * 同一批操作中所有目录树共用的在途文件上限，否则每个工作线程各复制一个目录时在途文件数会成倍增加
+     */
+    private synchronized Semaphore getTreeInFlightLimit(Path sourceDir, Path targetDir) {
+        if (treeInFlightLimit == null) {
+            treeInFlightLimit = new Semaphore(TreeCopier.recommendedParallelism(sourceDir, targetDir));
         }
+        return treeInFlightLimit;
+    }
+
+    /**
+     * 按块复制的引擎，每块完成后更新进度，块之间检查取消
+     */
+    private FileCopier createCopier() {
+        FileCopier copier = new FileCopier();
+        copier.setProgressListener(bytesDone::add);
+        copier.setFileListener(file -> currentFile = file);
+        copier.setCancelCheck(this::isCancelled);
+        copier.setJournal(journal);
+        copier.setVerification(verification);
+        copier.setSparse(sparse);
+        return copier;
     }
 
     /**
-     * 移动文件或目录
+     * 移动文件或目录：同一文件系统内原子改名（不计入字节进度），
+     * 跨文件系统时逐个文件复制、校验后删除源文件；目标冲突等错误直接报告，不再改用复制
      */
     private void moveFileOrDirectory(Path source, Path target) throws IOException {
-        // 尝试直接移动（如果在同一磁盘上会更快）
+        if (resumed && !Files.exists(source, LinkOption.NOFOLLOW_LINKS)
+                && Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            // 恢复时该项目在上次已经移动完成
+            return;
+        }
+        FileMover mover = new FileMover(copier);
+        mover.setCancelCheck(this::isCancelled);
         try {
-            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
-
-            long fileSize = Files.isDirectory(source) ?
-                    calculateFileSize(target) : Files.size(target);
-
-            Platform.runLater(() -> {
-                processedBytes.set(processedBytes.get() + fileSize);
-                updateProgressSafe();
-            });
-
-        } catch (IOException e) {
-            // 如果移动失败，回退到复制+删除
-            updateMessage("跨磁盘移动，使用复制+删除方式: " + source.getFileName());
-            copyFileOrDirectory(source, target);
-            deleteFileOrDirectory(source);
+            if (!mover.move(source, target)) {
+                updateMessage("跨文件系统移动: " + source.getFileName());
+            }
+        } finally {
+            failureDetails.addAll(mover.getSkipped());
         }
     }
 
@@ -317,14 +397,10 @@ public class BatchFileOperationTask extends Task<Void> {
                         return FileVisitResult.TERMINATE;
                     }
 
+                    currentFile = file;
                     Files.delete(file);
-
-                    // 更新进度
-                    long fileSize = attrs.size();
-                    Platform.runLater(() -> {
-                        processedBytes.set(processedBytes.get() + fileSize);
-                        updateProgressSafe();
-                    });
+                    bytesDone.add(attrs.size());
+                    deletedFiles.increment();
 
                     return FileVisitResult.CONTINUE;
                 }
@@ -340,45 +416,75 @@ public class BatchFileOperationTask extends Task<Void> {
                 }
             });
         } else {
+            currentFile = path;
             long fileSize = Files.size(path);
             Files.delete(path);
-
-            // 更新进度
-            Platform.runLater(() -> {
-                processedBytes.set(processedBytes.get() + fileSize);
-                updateProgressSafe();
-            });
+            bytesDone.add(fileSize);
+            deletedFiles.increment();
         }
     }
 
     /**
-     * 安全更新进度
+     * 采样计数器并发布到界面：计算瞬时速度并平滑，按平滑后的速度估计剩余时间。
+     * 工作线程不直接触碰界面，文件再多也只有每秒10次界面更新
      */
-    private void updateProgressSafe() {
-        long total = totalBytes.get();
-        long processed = processedBytes.get();
+    private synchronized void publishProgress() {
+        long now = System.nanoTime();
+        long bytes = bytesDone.sum();
+        long files = deletedFiles.sum() + (copier != null ? copier.getCopiedFiles() : 0);
+        if (lastTickNanos != 0 && now > lastTickNanos) {
+            double seconds = (now - lastTickNanos) / 1e9;
+            double byteRate = (bytes - lastTickBytes) / seconds;
+            double fileRate = (files - lastTickFiles) / seconds;
+            smoothedByteRate += RATE_SMOOTHING * (byteRate - smoothedByteRate);
+            smoothedFileRate += RATE_SMOOTHING * (fileRate - smoothedFileRate);
+        }
+        lastTickNanos = now;
+        lastTickBytes = bytes;
+        lastTickFiles = files;
+
+        long total = totalSize;
+        int completed = (int) completedCount.sum();
+        int failed = (int) failedCount.sum();
         if (total > 0) {
-            double progress = (double) processed / total;
-            updateProgress(progress, 1.0);
+            updateProgress(Math.min(bytes, total), total);
+        } else if (type == OperationType.DELETE) {
+            updateProgress(completed + failed, sourcePaths.size());
+        }
+        String speed = String.format("%s/秒，%.0f 个文件/秒", FileUtils.formatSize((long) smoothedByteRate),
+                smoothedFileRate);
+        String eta = total > 0 && smoothedByteRate >= 1 && bytes < total
+                ? formatDuration((long) ((total - bytes) / smoothedByteRate)) : "--";
+        Path file = currentFile;
+        String fileText = file != null ? file.toString() : "";
+
+        if (publishPending.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                publishPending.set(false);
+                totalBytes.set(total);
+                processedBytes.set(bytes);
+                completedFiles.set(completed);
+                failedFiles.set(failed);
+                speedText.set(speed);
+                etaText.set(eta);
+                currentFileText.set(fileText);
+            });
         }
     }
 
-    /**
-     * 取消所有已提交的任务
-     */
-    private void cancelSubmittedTasks() {
-        for (Future<?> future : submittedTasks) {
-            if (!future.isDone()) {
-                future.cancel(true);
-            }
+    private static String formatDuration(long seconds) {
+        if (seconds >= 3600) {
+            return String.format("%d 小时 %d 分", seconds / 3600, seconds % 3600 / 60);
+        }
+        if (seconds >= 60) {
+            return String.format("%d 分 %d 秒", seconds / 60, seconds % 60);
         }
-        submittedTasks.clear();
+        return seconds + " 秒";
     }
 
     @Override
     protected void cancelled() {
         updateMessage("操作已取消");
-        cancelSubmittedTasks();
     }
 
     @Override
@@ -386,23 +492,53 @@ public class BatchFileOperationTask extends Task<Void> {
         Platform.runLater(() -> {
             Throwable ex = getException();
             String message = "操作失败: " + (ex != null ? ex.getMessage() : "未知错误");
-            showAlert("操作失败", message);
+            showWarning("操作失败", message + formatFailureDetails());
         });
     }
 
     @Override
     protected void succeeded() {
         Platform.runLater(() -> {
-            if (failedFiles.get() > 0) {
-                showAlert("操作完成", String.format(
+            if (failedCount.sum() > 0) {
+                showWarning("操作完成", String.format(
                         "操作部分完成。成功: %d, 失败: %d",
-                        completedFiles.get(), failedFiles.get()));
+                        completedCount.sum(), failedCount.sum()) + formatFailureDetails());
+            } else if (!failureDetails.isEmpty()) {
+                // 所有项目都成功，但有子树被跳过
+                showWarning("操作完成", "操作完成，以下内容未处理:" + formatFailureDetails());
             } else {
-                showAlert("操作成功", "文件操作已成功完成");
+                String message = "文件操作已成功完成";
+                if (verification != FileCopier.Verification.NONE) {
+                    message += "，所有文件 " + verification + " 校验一致";
+                }
+                String sparseSummary = copier != null ? copier.getSparseSummary() : "";
+                if (!sparseSummary.isEmpty()) {
+                    message += "\n" + sparseSummary;
+                }
+                showAlert("操作成功", message);
             }
         });
     }
 
+    /**
+     * 失败项目的列表，最多列出 MAX_LISTED_FAILURES 项
+     */
+    private String formatFailureDetails() {
+        if (failureDetails.isEmpty()) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("\n");
+        int listed = 0;
+        for (String detail : failureDetails) {
+            if (listed++ == MAX_LISTED_FAILURES) {
+                text.append("\n…… 另有 ").append(failureDetails.size() - MAX_LISTED_FAILURES).append(" 项");
+                break;
+            }
+            text.append('\n').append(detail);
+        }
+        return text.toString();
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle(title);
@@ -459,11 +595,23 @@ public class BatchFileOperationTask extends Task<Void> {
                         percentage,
                         FileUtils.formatSize(newValue.longValue()),
                         FileUtils.formatSize(total)));
+            } else if (type == OperationType.DELETE) {
+                sizeLabel.setText("已删除 " + FileUtils.formatSize(newValue.longValue()));
             } else {
                 sizeLabel.setText("计算大小中...");
             }
         });
-        sizeLabel.setText("计算大小中...");
+        sizeLabel.setText(type == OperationType.DELETE ? "" : "计算大小中...");
+
+        Label speedLabel = new Label();
+        speedLabel.textProperty().bind(speedText);
+        Label etaLabel = new Label();
+        etaLabel.textProperty().bind(etaText);
+        // 路径过长时省略中间部分
+        Label currentFileLabel = new Label();
+        currentFileLabel.setMaxWidth(300);
+        currentFileLabel.setTextOverrun(OverrunStyle.CENTER_ELLIPSIS);
+        currentFileLabel.textProperty().bind(currentFileText);
 
         GridPane grid = new GridPane();
         grid.setHgap(10);
@@ -478,7 +626,13 @@ public class BatchFileOperationTask extends Task<Void> {
         grid.add(new Label("文件:"), 0, row);
         grid.add(fileCountLabel, 1, row++);
         grid.add(new Label("大小:"), 0, row);
-        grid.add(sizeLabel, 1, row);
+        grid.add(sizeLabel, 1, row++);
+        grid.add(new Label("速度:"), 0, row);
+        grid.add(speedLabel, 1, row++);
+        grid.add(new Label("剩余时间:"), 0, row);
+        grid.add(etaLabel, 1, row++);
+        grid.add(new Label("当前文件:"), 0, row);
+        grid.add(currentFileLabel, 1, row);
 
         dialog.getDialogPane().setContent(grid);
         dialog.getDialogPane().getButtonTypes().add(javafx.scene.control.ButtonType.CANCEL);
@@ -0,0 +1,178 @@
+package com.fileexplorer;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 复制、哈希和搜索共用的直接缓冲区池。
+ * 缓冲区按固定的几档大小分配，每个线程先从自己的小缓存中取（无竞争），再从全局空闲队列中取；
+ * 池创建的直接内存总量有上限，超过上限或请求大于最大一档时临时分配堆缓冲区，归还时直接丢弃。
+ * 借出的缓冲区必须在 finally 中归还，否则计入未归还字节数。
+ */
+public class BufferPool {
+    private static BufferPool instance;
+
+    // 各档容量：签名和文本检测、三元组读取、小文件搜索、哈希、复制流水线
+    private static final int[] SIZE_CLASSES = {8 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024, 4 * 1024 * 1024};
+    // 每个线程每档最多缓存的缓冲区数
+    private static final int THREAD_CACHE_SLOTS = 2;
+    // 池创建的直接内存上限
+    private static final long MAX_POOLED_BYTES = 256L * 1024 * 1024;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final ConcurrentLinkedQueue<ByteBuffer>[] shared;
+    private final ThreadLocal<ThreadCache> threadCaches = ThreadLocal.withInitial(this::newThreadCache);
+
+    // 池创建且仍存活的直接内存（借出的、全局空闲的、线程缓存中的）
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final LongAdder outstandingBytes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 单个线程的缓存。线程结束后缓存被回收，其中缓冲区的字节数由 Cleaner 从总量中扣除
+     */
+    private static final class ThreadCache {
+        final ByteBuffer[][] slots = new ByteBuffer[SIZE_CLASSES.length][THREAD_CACHE_SLOTS];
+        final int[] counts = new int[SIZE_CLASSES.length];
+        // 单独的对象，Cleaner 的回收动作不能引用缓存本身
+        final AtomicLong heldBytes = new AtomicLong();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BufferPool() {
+        shared = new ConcurrentLinkedQueue[SIZE_CLASSES.length];
+        for (int i = 0; i < shared.length; i++) {
+            shared[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    public static synchronized BufferPool getInstance() {
+        if (instance == null) {
+            instance = new BufferPool();
+        }
+        return instance;
+    }
+
+    /**
+     * 借出至少 size 字节的缓冲区，position 为0，limit 为 size
+     */
+    public ByteBuffer acquire(int size) {
+        int sizeClass = sizeClassOf(size);
+        ByteBuffer buffer = null;
+        if (sizeClass >= 0) {
+            buffer = takeCached(sizeClass);
+            if (buffer != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                buffer = allocate(sizeClass);
+            }
+        } else {
+            misses.increment();
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(size);
+        }
+
+        outstandingBytes.add(buffer.capacity());
+        buffer.clear().limit(size);
+        return buffer;
+    }
+
+    /**
+     * 归还 acquire 借出的缓冲区；null 被忽略。归还后调用方不能再使用该缓冲区
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        outstandingBytes.add(-buffer.capacity());
+        int sizeClass = sizeClassOf(buffer.capacity());
+        if (!buffer.isDirect() || sizeClass < 0 || SIZE_CLASSES[sizeClass] != buffer.capacity()) {
+            // 临时分配的堆缓冲区
+            return;
+        }
+
+        ThreadCache cache = threadCaches.get();
+        if (cache.counts[sizeClass] < THREAD_CACHE_SLOTS) {
+            cache.slots[sizeClass][cache.counts[sizeClass]++] = buffer;
+            cache.heldBytes.addAndGet(buffer.capacity());
+        } else {
+            shared[sizeClass].offer(buffer);
+        }
+    }
+
+    /**
+     * 命中率：从池中（线程缓存或全局队列）取到已有缓冲区的比例
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 借出但尚未归还的字节数，没有I/O进行时应为0
+     */
+    public long getOutstandingBytes() {
+        return outstandingBytes.sum();
+    }
+
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    public String getStatsSummary() {
+        return String.format("缓冲池命中率 %.0f%%，直接内存 %s，未归还 %s", getHitRate() * 100,
+                FileUtils.formatSize(pooledBytes.get()), FileUtils.formatSize(getOutstandingBytes()));
+    }
+
+    private static int sizeClassOf(int size) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (size <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer takeCached(int sizeClass) {
+        ThreadCache cache = threadCaches.get();
+        if (cache.counts[sizeClass] > 0) {
+            int slot = --cache.counts[sizeClass];
+            ByteBuffer buffer = cache.slots[sizeClass][slot];
+            cache.slots[sizeClass][slot] = null;
+            cache.heldBytes.addAndGet(-buffer.capacity());
+            return buffer;
+        }
+        return shared[sizeClass].poll();
+    }
+
+    /**
+     * 在上限内分配新的直接缓冲区，超过上限时返回null
+     */
+    private ByteBuffer allocate(int sizeClass) {
+        int capacity = SIZE_CLASSES[sizeClass];
+        long current;
+        do {
+            current = pooledBytes.get();
+            if (current + capacity > MAX_POOLED_BYTES) {
+                return null;
+            }
+        } while (!pooledBytes.compareAndSet(current, current + capacity));
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    private ThreadCache newThreadCache() {
+        ThreadCache cache = new ThreadCache();
+        AtomicLong heldBytes = cache.heldBytes;
+        AtomicLong total = pooledBytes;
+        CLEANER.register(cache, () -> total.addAndGet(-heldBytes.get()));
+        return cache;
+    }
+}
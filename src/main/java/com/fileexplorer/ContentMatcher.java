@@ -0,0 +1,609 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字节级文件内容匹配器。
+ * 直接在原始字节上查找通配符中最长的字面量片段，该片段预先按UTF-8、GBK、UTF-16LE编码：
+ * 只有一种字节形式时使用Boyer-Moore-Horspool，多种形式时使用Aho-Corasick。
+ * 只有命中的候选行才会被解码并交给通配符匹配器校验。
+ */
+public class ContentMatcher {
+    // 候选编码，按常见程度排序
+    private static final Charset[] CANDIDATE_CHARSETS = candidateCharsets();
+
+    // 文件按窗口以定位读取的方式读入缓冲池借来的直接缓冲区，不做内存映射（映射区域无法及时释放，在Windows上会阻止删除和重命名）
+    private static final int FILE_WINDOW_SIZE = 4 * 1024 * 1024;
+
+    // 扫描输入流时的窗口大小
+    private static final int STREAM_WINDOW_SIZE = 4 * 1024 * 1024;
+
+    // 候选行向两侧最多扩展的字节数
+    private static final int MAX_LINE_CONTEXT = 8 * 1024;
+
+    // ASCII大小写折叠表（与GlobMatcher对ASCII字符的折叠一致）
+    private static final byte[] FOLD = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            FOLD[i] = (byte) (i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i);
+        }
+    }
+
+    /**
+     * 同一段字节可能对应多个编码（例如纯ASCII字面量在UTF-8和GBK下相同）
+     */
+    private static final class Term {
+        final byte[] bytes;
+        final List<Charset> charsets = new ArrayList<>(2);
+
+        Term(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private final GlobMatcher verifier;
+    private final List<String> literals;
+    private final Term[] terms;
+    private final int overlap;
+
+    // 单一字节形式时使用的BMH跳转表
+    private int[] shiftTable;
+
+    // 多字节形式且都不短于SET_HORSPOOL_MIN_LENGTH时，按公共前缀长度使用集合Horspool跳跃查找
+    private static final int SET_HORSPOOL_MIN_LENGTH = 3;
+    private int minTermLength;
+    private int[] setShiftTable;
+
+    // 多字节形式中存在过短的字面量时使用的Aho-Corasick自动机：扁平化的完整转移表，表项直接存放目标状态的行偏移（state * 256），
+    // 大小写折叠已并入转移表；有输出的状态编号排在最后，热循环中只需一次比较即可判断是否命中
+    private int[] transitions;
+    private int outputBase;
+    private int[] stateTerm;
+    private int[] dictLink;
+
+    private ContentMatcher(GlobMatcher verifier, List<String> literals) {
+        this.verifier = verifier;
+        this.literals = Collections.unmodifiableList(literals);
+
+        String anchor = "";
+        for (String literal : literals) {
+            if (literal.length() > anchor.length()) {
+                anchor = literal;
+            }
+        }
+        this.terms = encodeTerms(anchor);
+
+        int maxLength = 0;
+        for (Term term : terms) {
+            maxLength = Math.max(maxLength, term.bytes.length);
+        }
+        // 窗口重叠保持偶数，保证UTF-16LE的对齐判断在每个窗口中一致
+        this.overlap = (maxLength + 1) & ~1;
+
+        if (terms.length == 1) {
+            buildShiftTable(terms[0].bytes);
+        } else if (terms.length > 1) {
+            minTermLength = Integer.MAX_VALUE;
+            for (Term term : terms) {
+                minTermLength = Math.min(minTermLength, term.bytes.length);
+            }
+            if (minTermLength >= SET_HORSPOOL_MIN_LENGTH) {
+                buildSetShiftTable();
+            } else {
+                buildAutomaton();
+            }
+        }
+    }
+
+    /**
+     * 根据用户输入的通配符编译匹配器，verifier用于对候选行做最终校验（需匹配整行）
+     */
+    public static ContentMatcher compile(String wildcard, GlobMatcher verifier) {
+        return new ContentMatcher(verifier, extractLiterals(wildcard));
+    }
+
+    /**
+     * 通配符中不含 * ? [...] 的字面量片段
+     */
+    public List<String> getLiterals() {
+        return literals;
+    }
+
+    /**
+     * 判断文件内容中是否存在匹配的行
+     */
+    public boolean matches(Path file) {
+        return matches(file, Long.MAX_VALUE);
+    }
+
+    /**
+     * 只扫描文件开头的 maxBytes 字节，找到第一个匹配即返回
+     */
+    public boolean matches(Path file, long maxBytes) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), maxBytes);
+            if (size == 0) {
+                return false;
+            }
+
+            BufferPool pool = BufferPool.getInstance();
+            ByteBuffer window = pool.acquire((int) Math.min(size, FILE_WINDOW_SIZE));
+            try {
+                long base = 0;
+                int kept = 0;
+                while (true) {
+                    int want = (int) Math.min(window.limit() - kept, size - base - kept);
+                    int read = readAt(channel, window, kept, want, base + kept);
+                    int length = kept + read;
+                    if (scanWindow(window, base, length)) {
+                        return true;
+                    }
+                    // 读到末尾，或文件在扫描过程中被截断
+                    if (base + length >= size || read < want) {
+                        return false;
+                    }
+
+                    int carry = Math.min(overlap, length);
+                    window.put(0, window, length - carry, carry);
+                    base += length - carry;
+                    kept = carry;
+                }
+            } finally {
+                pool.release(window);
+            }
+        } catch (IOException e) {
+            // 忽略读取错误
+        }
+        return false;
+    }
+
+    /**
+     * 从文件的 position 处定位读取最多 length 字节，写入缓冲区的 offset 处
+     */
+    private static int readAt(FileChannel channel, ByteBuffer buffer, int offset, int length, long position)
+            throws IOException {
+        ByteBuffer target = buffer.slice(offset, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                break;
+            }
+        }
+        return target.position();
+    }
+
+    /**
+     * 扫描输入流（例如压缩包条目经 Inflater 解压后的数据），最多读取 maxBytes 字节。
+     * 按窗口读取，相邻窗口保留 overlap 字节的重叠，找到第一个匹配即返回。
+     * 开头的一块不像文本时直接放弃，不再继续解压。
+     */
+    public boolean matches(InputStream in, long maxBytes) throws IOException {
+        // 不关闭该通道，输入流由调用方负责关闭
+        ReadableByteChannel source = Channels.newChannel(in);
+        BufferPool pool = BufferPool.getInstance();
+        ByteBuffer window = pool.acquire(STREAM_WINDOW_SIZE);
+        try {
+            long base = 0;
+            int kept = 0;
+            while (base < maxBytes) {
+                int want = (int) Math.max(Math.min(STREAM_WINDOW_SIZE - kept, maxBytes - base - kept), 0);
+                int read = readFully(source, window, kept, want);
+                int length = kept + read;
+                if (length == 0) {
+                    return false;
+                }
+                if (base == 0 && !TextFileDetector.looksLikeText(window,
+                        Math.min(length, TextFileDetector.SNIFF_SIZE))) {
+                    return false;
+                }
+                if (scanWindow(window, base, length)) {
+                    return true;
+                }
+                if (read < want || want <= 0) {
+                    return false;
+                }
+
+                int carry = Math.min(overlap, length);
+                window.put(0, window, length - carry, carry);
+                base += length - carry;
+                kept = carry;
+            }
+            return false;
+        } finally {
+            pool.release(window);
+        }
+    }
+
+    /**
+     * 从输入流通道读取最多 length 字节，写入缓冲区的 offset 处
+     */
+    private static int readFully(ReadableByteChannel in, ByteBuffer buffer, int offset, int length) throws IOException {
+        ByteBuffer target = buffer.slice(offset, length);
+        while (target.hasRemaining()) {
+            if (in.read(target) < 0) {
+                break;
+            }
+        }
+        return target.position();
+    }
+
+    /**
+     * 在一个窗口内查找候选位置并校验
+     */
+    private boolean scanWindow(ByteBuffer buffer, long base, int limit) {
+        if (terms.length == 0) {
+            return scanAllLines(buffer, limit);
+        }
+        if (terms.length == 1) {
+            return scanSingle(buffer, base, limit);
+        }
+        if (setShiftTable != null) {
+            return scanSet(buffer, base, limit);
+        }
+        return scanMultiple(buffer, base, limit);
+    }
+
+    /**
+     * Boyer-Moore-Horspool 单模式查找，直接按下标读取缓冲区，不拷贝到数组
+     */
+    private boolean scanSingle(ByteBuffer buffer, long base, int limit) {
+        Term term = terms[0];
+        byte[] pattern = term.bytes;
+        int last = pattern.length - 1;
+
+        int i = 0;
+        while (i + last < limit) {
+            int j = last;
+            while (j >= 0 && FOLD[buffer.get(i + j) & 0xFF] == pattern[j]) {
+                j--;
+            }
+            if (j < 0 && verify(buffer, base, limit, i, term)) {
+                return true;
+            }
+            i += shiftTable[FOLD[buffer.get(i + last) & 0xFF] & 0xFF];
+        }
+        return false;
+    }
+
+    /**
+     * 集合Horspool多模式查找：按所有字面量前minTermLength个字节计算统一的跳转距离，
+     * 每个对齐位置只比较少量字面量，随机文本上平均每次可跳过接近minTermLength个字节
+     */
+    private boolean scanSet(ByteBuffer buffer, long base, int limit) {
+        int last = minTermLength - 1;
+
+        int i = 0;
+        while (i + last < limit) {
+            byte tail = FOLD[buffer.get(i + last) & 0xFF];
+            for (Term term : terms) {
+                byte[] pattern = term.bytes;
+                if (pattern[last] != tail || i + pattern.length > limit) {
+                    continue;
+                }
+                int j = 0;
+                while (j < pattern.length && FOLD[buffer.get(i + j) & 0xFF] == pattern[j]) {
+                    j++;
+                }
+                if (j == pattern.length && verify(buffer, base, limit, i, term)) {
+                    return true;
+                }
+            }
+            i += setShiftTable[tail & 0xFF];
+        }
+        return false;
+    }
+
+    /**
+     * Aho-Corasick 多模式查找
+     */
+    private boolean scanMultiple(ByteBuffer buffer, long base, int limit) {
+        int[] delta = transitions;
+        int threshold = outputBase;
+        int state = 0;
+
+        for (int i = 0; i < limit; i++) {
+            state = delta[state | (buffer.get(i) & 0xFF)];
+            if (state >= threshold) {
+                int id = state >>> 8;
+                for (int s = stateTerm[id] >= 0 ? id : dictLink[id]; s > 0; s = dictLink[s]) {
+                    Term term = terms[stateTerm[s]];
+                    if (verify(buffer, base, limit, i - term.bytes.length + 1, term)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 没有字面量可用时（如只有 ? 和 *），逐行解码校验
+     */
+    private boolean scanAllLines(ByteBuffer buffer, int limit) {
+        int start = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit || buffer.get(i) == '\n') {
+                if (i > start || i < limit) {
+                    byte[] line = new byte[Math.min(i - start, MAX_LINE_CONTEXT * 2)];
+                    buffer.get(start, line);
+                    for (Charset charset : CANDIDATE_CHARSETS) {
+                        if (charset != StandardCharsets.UTF_16LE && verifyLine(line, charset)) {
+                            return true;
+                        }
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 截取命中位置所在的行，按对应编码解码后交给通配符匹配器校验
+     */
+    private boolean verify(ByteBuffer buffer, long base, int limit, int hit, Term term) {
+        for (Charset charset : term.charsets) {
+            int unit = charset == StandardCharsets.UTF_16LE ? 2 : 1;
+            if (unit == 2 && ((base + hit) & 1) != 0) {
+                continue;
+            }
+
+            int minStart = Math.max(0, hit - MAX_LINE_CONTEXT);
+            int start = hit;
+            if (unit == 1) {
+                while (start > minStart && buffer.get(start - 1) != '\n') {
+                    start--;
+                }
+            } else {
+                while (start - 2 >= minStart && !(buffer.get(start - 2) == '\n' && buffer.get(start - 1) == 0)) {
+                    start -= 2;
+                }
+            }
+
+            int maxEnd = (int) Math.min(limit, (long) hit + term.bytes.length + MAX_LINE_CONTEXT);
+            int end = hit + term.bytes.length;
+            if (unit == 1) {
+                while (end < maxEnd && buffer.get(end) != '\n') {
+                    end++;
+                }
+            } else {
+                while (end + 2 <= maxEnd && !(buffer.get(end) == '\n' && buffer.get(end + 1) == 0)) {
+                    end += 2;
+                }
+            }
+
+            byte[] line = new byte[end - start];
+            buffer.get(start, line);
+            if (verifyLine(line, charset)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean verifyLine(byte[] line, Charset charset) {
+        String text = new String(line, charset);
+        if (text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        return verifier.matches(text);
+    }
+
+    private void buildShiftTable(byte[] pattern) {
+        shiftTable = new int[256];
+        Arrays.fill(shiftTable, pattern.length);
+        for (int k = 0; k < pattern.length - 1; k++) {
+            shiftTable[pattern[k] & 0xFF] = pattern.length - 1 - k;
+        }
+    }
+
+    private void buildSetShiftTable() {
+        setShiftTable = new int[256];
+        Arrays.fill(setShiftTable, minTermLength);
+        for (Term term : terms) {
+            for (int k = 0; k < minTermLength - 1; k++) {
+                int c = term.bytes[k] & 0xFF;
+                setShiftTable[c] = Math.min(setShiftTable[c], minTermLength - 1 - k);
+            }
+        }
+    }
+
+    private void buildAutomaton() {
+        // 先构建trie
+        List<int[]> gotoList = new ArrayList<>();
+        List<Integer> termList = new ArrayList<>();
+        gotoList.add(newRow());
+        termList.add(-1);
+
+        for (int t = 0; t < terms.length; t++) {
+            int state = 0;
+            for (byte b : terms[t].bytes) {
+                int c = b & 0xFF;
+                if (gotoList.get(state)[c] < 0) {
+                    gotoList.get(state)[c] = gotoList.size();
+                    gotoList.add(newRow());
+                    termList.add(-1);
+                }
+                state = gotoList.get(state)[c];
+            }
+            termList.set(state, t);
+        }
+
+        int stateCount = gotoList.size();
+        int[][] rows = gotoList.toArray(new int[0][]);
+        stateTerm = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            stateTerm[s] = termList.get(s);
+        }
+
+        // 按广度优先计算失败链接，并补全为确定性转移表
+        int[] fail = new int[stateCount];
+        dictLink = new int[stateCount];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < 256; c++) {
+            int next = rows[0][c];
+            if (next < 0) {
+                rows[0][c] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failState = fail[state];
+            dictLink[state] = stateTerm[failState] >= 0 ? failState : dictLink[failState];
+            for (int c = 0; c < 256; c++) {
+                int next = rows[state][c];
+                if (next < 0) {
+                    rows[state][c] = rows[failState][c];
+                } else {
+                    fail[next] = rows[failState][c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        // 重新编号：无输出的状态在前，有输出的状态在后
+        int[] order = new int[stateCount];
+        int[] newId = new int[stateCount];
+        int count = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int s = 0; s < stateCount; s++) {
+                boolean output = stateTerm[s] >= 0 || dictLink[s] > 0;
+                if (output == (pass == 1)) {
+                    if (pass == 1 && outputBase == 0) {
+                        outputBase = count << 8;
+                    }
+                    newId[s] = count;
+                    order[count++] = s;
+                }
+            }
+        }
+
+        transitions = new int[stateCount << 8];
+        int[] remappedTerm = new int[stateCount];
+        int[] remappedLink = new int[stateCount];
+        for (int id = 0; id < stateCount; id++) {
+            int s = order[id];
+            remappedTerm[id] = stateTerm[s];
+            remappedLink[id] = newId[dictLink[s]];
+            for (int c = 0; c < 256; c++) {
+                transitions[(id << 8) | c] = newId[rows[s][FOLD[c] & 0xFF]] << 8;
+            }
+        }
+        stateTerm = remappedTerm;
+        dictLink = remappedLink;
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[256];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * 将字面量按各候选编码转换为折叠后的字节序列，相同字节的编码合并为一项
+     */
+    private static Term[] encodeTerms(String literal) {
+        if (literal.isEmpty()) {
+            return new Term[0];
+        }
+
+        Map<String, Term> byBytes = new LinkedHashMap<>();
+        for (Charset charset : CANDIDATE_CHARSETS) {
+            byte[] bytes = encodeFolded(literal, charset);
+            if (bytes == null) {
+                continue;
+            }
+            String key = new String(bytes, StandardCharsets.ISO_8859_1);
+            byBytes.computeIfAbsent(key, k -> new Term(bytes)).charsets.add(charset);
+        }
+        return byBytes.values().toArray(new Term[0]);
+    }
+
+    /**
+     * 按指定编码编码并做ASCII大小写折叠，无法编码时返回null
+     */
+    static byte[] encodeFolded(String literal, Charset charset) {
+        if (!charset.newEncoder().canEncode(literal)) {
+            return null;
+        }
+        byte[] bytes = literal.getBytes(charset);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = FOLD[bytes[i] & 0xFF];
+        }
+        return bytes;
+    }
+
+    /**
+     * 单字节的ASCII大小写折叠
+     */
+    static int fold(int b) {
+        return FOLD[b & 0xFF] & 0xFF;
+    }
+
+    /**
+     * 内容搜索支持的候选编码
+     */
+    static Charset[] getCandidateCharsets() {
+        return CANDIDATE_CHARSETS.clone();
+    }
+
+    /**
+     * 拆分出通配符中的字面量片段
+     */
+    static List<String> extractLiterals(String wildcard) {
+        List<String> result = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (int i = 0; i < wildcard.length(); i++) {
+            char c = wildcard.charAt(i);
+            if (c == '*' || c == '?') {
+                flushLiteral(current, result);
+            } else if (c == '[' && wildcard.indexOf(']', i + 1) > i) {
+                flushLiteral(current, result);
+                i = wildcard.indexOf(']', i + 1);
+            } else {
+                current.append(c);
+            }
+        }
+        flushLiteral(current, result);
+        return result;
+    }
+
+    private static void flushLiteral(StringBuilder current, List<String> result) {
+        if (current.length() > 0) {
+            result.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    private static Charset[] candidateCharsets() {
+        List<Charset> charsets = new ArrayList<>();
+        charsets.add(StandardCharsets.UTF_8);
+        // 精简运行时可能不包含GBK
+        if (Charset.isSupported("GBK")) {
+            charsets.add(Charset.forName("GBK"));
+        }
+        charsets.add(StandardCharsets.UTF_16LE);
+        return charsets.toArray(new Charset[0]);
+    }
+}
@@ -0,0 +1,231 @@
+package com.fileexplorer;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 内容搜索流水线：遍历线程把候选文件放入有界队列，多个扫描线程并行读取并匹配，
+ * 合并线程按遍历顺序发布命中结果。队列满时遍历线程阻塞，形成背压。
+ */
+public class ContentSearchPipeline {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    /**
+     * 遍历阶段产生的候选文件，sequence为遍历顺序
+     */
+    private static final class Candidate {
+        final long sequence;
+        final Path path;
+        final long size;
+
+        Candidate(long sequence, Path path, long size) {
+            this.sequence = sequence;
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 扫描阶段的结果
+     */
+    private static final class Outcome {
+        final long sequence;
+        final Path path;
+        final boolean matched;
+
+        Outcome(long sequence, Path path, boolean matched) {
+            this.sequence = sequence;
+            this.path = path;
+            this.matched = matched;
+        }
+    }
+
+    // 通知扫描线程结束的标记
+    private static final Candidate END = new Candidate(-1, null, 0);
+
+    private final Predicate<Path> matcher;
+    private final Consumer<Path> hitConsumer;
+    private final BooleanSupplier cancelCheck;
+    private final int maxHits;
+    private final int scannerCount;
+
+    private final BlockingQueue<Candidate> candidates = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+    private final CountDownLatch scannersDone;
+    private final CountDownLatch mergerDone = new CountDownLatch(1);
+    private volatile boolean stopped = false;
+
+    // 只由遍历线程访问
+    private long nextSequence = 0;
+
+    // 各阶段统计
+    private final LongAdder walkedFiles = new LongAdder();
+    private final LongAdder scannedFiles = new LongAdder();
+    private final LongAdder scannedBytes = new LongAdder();
+    private final LongAdder publishedHits = new LongAdder();
+    private long startNanos;
+
+    /**
+     * @param matcher      在扫描线程中调用的内容匹配函数
+     * @param hitConsumer  在合并线程中按遍历顺序调用
+     * @param cancelCheck  外部取消检查（通常为所属任务的 isCancelled）
+     * @param maxHits      达到该命中数后停止整个流水线
+     * @param scannerCount 扫描线程数，一般由 FileUtils.recommendedIoParallelism 给出
+     */
+    public ContentSearchPipeline(Predicate<Path> matcher, Consumer<Path> hitConsumer, BooleanSupplier cancelCheck,
+                                 int maxHits, int scannerCount) {
+        this.matcher = matcher;
+        this.hitConsumer = hitConsumer;
+        this.cancelCheck = cancelCheck;
+        this.maxHits = maxHits;
+        this.scannerCount = Math.max(1, scannerCount);
+        this.scannersDone = new CountDownLatch(this.scannerCount);
+    }
+
+    /**
+     * 启动扫描线程和合并线程
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        ExecutorService executor = ThreadPoolManager.getInstance().getSearchExecutor();
+        for (int i = 0; i < scannerCount; i++) {
+            executor.execute(this::runScanner);
+        }
+        executor.execute(this::runMerger);
+    }
+
+    /**
+     * 由遍历线程调用，提交一个候选文件；队列满时阻塞。
+     * 返回false表示流水线已停止（取消或结果已达上限），遍历应当终止。
+     */
+    public boolean offer(Path path, long size) throws InterruptedException {
+        walkedFiles.increment();
+        Candidate candidate = new Candidate(nextSequence++, path, size);
+        while (!isStopped()) {
+            if (candidates.offer(candidate, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 遍历结束后调用，等待所有已提交的文件扫描完毕且结果发布完成
+     */
+    public void finish() throws InterruptedException {
+        for (int i = 0; i < scannerCount && !isStopped(); ) {
+            if (candidates.offer(END, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                i++;
+            }
+        }
+        mergerDone.await();
+    }
+
+    /**
+     * 停止流水线，未处理的候选文件将被丢弃
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped || cancelCheck.getAsBoolean();
+    }
+
+    private void runScanner() {
+        try {
+            while (!isStopped()) {
+                Candidate candidate = candidates.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (candidate == null) {
+                    continue;
+                }
+                if (candidate == END) {
+                    break;
+                }
+
+                boolean matched;
+                try {
+                    matched = matcher.test(candidate.path);
+                } catch (RuntimeException e) {
+                    // 每个候选都必须产生结果，否则合并线程会一直等待这个序号
+                    System.err.println("扫描文件内容失败: " + candidate.path + " - " + e);
+                    matched = false;
+                }
+                scannedFiles.increment();
+                scannedBytes.add(candidate.size);
+                outcomes.add(new Outcome(candidate.sequence, candidate.path, matched));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            scannersDone.countDown();
+        }
+    }
+
+    private void runMerger() {
+        // 扫描线程乱序完成，按遍历顺序重新排列后再发布
+        PriorityQueue<Outcome> pending = new PriorityQueue<>(Comparator.comparingLong((Outcome o) -> o.sequence));
+        long expected = 0;
+
+        try {
+            while (true) {
+                Outcome outcome = outcomes.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (outcome != null) {
+                    pending.add(outcome);
+                } else if (scannersDone.getCount() == 0 && outcomes.isEmpty()) {
+                    break;
+                }
+
+                while (!pending.isEmpty() && pending.peek().sequence == expected && !isStopped()) {
+                    publish(pending.poll());
+                    expected++;
+                }
+            }
+
+            // 流水线提前停止时可能存在空洞，剩余结果仍按顺序发布
+            while (!pending.isEmpty() && !isStopped()) {
+                publish(pending.poll());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            mergerDone.countDown();
+        }
+    }
+
+    private void publish(Outcome outcome) {
+        if (!outcome.matched) {
+            return;
+        }
+        hitConsumer.accept(outcome.path);
+        publishedHits.increment();
+        if (publishedHits.sum() >= maxHits) {
+            stop();
+        }
+    }
+
+    /**
+     * 各阶段吞吐量摘要，用于状态栏显示
+     */
+    public String getThroughputSummary() {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 0.001);
+        return String.format("遍历 %.0f 个/秒 | 扫描 %.0f 个/秒, %s/秒 (%d 线程) | 命中 %d",
+                walkedFiles.sum() / seconds,
+                scannedFiles.sum() / seconds,
+                FileUtils.formatSize((long) (scannedBytes.sum() / seconds)),
+                scannerCount,
+                publishedHits.sum());
+    }
+}
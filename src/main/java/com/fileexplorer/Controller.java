@@ -118,7 +118,7 @@ public class Controller {
         modeButton.setText("网格");  // 初始为表格模式，所以按钮显示"网格"
 
         // 设置搜索模式下拉框
-        searchModeComboBox.getItems().addAll("通配符匹配", "字符串匹配", "文本文件内容通配符匹配", "搜索图片", "搜索音频", "搜索视频", "搜索文档", "搜索压缩文件", "检索大文件(100MB+,可能需要等待)");
+        searchModeComboBox.getItems().addAll("通配符匹配", "字符串匹配", "文本文件内容通配符匹配", "搜索图片", "搜索音频", "搜索视频", "搜索文档", "搜索压缩文件", "最大的文件和文件夹", "高级查询", "查找重复文件", "搜索压缩包内", "模糊匹配");
         searchModeComboBox.setValue("字符串匹配");
 
         // 设置树视图单元工厂
@@ -130,13 +130,18 @@ public class Controller {
                     setText(null);
                     setGraphic(null);
                 } else {
+                    SmartFolder smartFolder = SmartFolderManager.isSmartFolderPath(item)
+                            ? SmartFolderManager.getInstance().find(item) : null;
                     if (item.toString().equals("此电脑")) {
                         setText("此电脑");
+                    } else if (smartFolder != null) {
+                        setText(smartFolder.getName());
                     } else {
                         setText(item.getFileName() != null ? item.getFileName().toString() : item.toString());
                     }
 
-                    if (item.toString().equals("此电脑") || Files.isDirectory(item)) {
+                    if (item.toString().equals("此电脑") || SmartFolderManager.isSmartFolderPath(item)
+                            || Files.isDirectory(item)) {
                         ImageView icon = IconManager.getInstance().createFolderIconView(16);
                         if (icon != null) {
                             setGraphic(icon);
@@ -260,9 +265,15 @@ public class Controller {
         // 加载目录树
         treeViewHandler.loadDirectoryTree();
 
+        // 智能文件夹在后台保持最新
+        SmartFolderManager.getInstance().start();
+
         // 初始化剪贴板监听
         fileOperationHandler.initializeClipboardListener();
 
+        // 上次中途退出的复制/移动
+        Platform.runLater(fileOperationHandler::offerPendingTransfers);
+
         // 设置右键菜单
         ContextMenu contextMenu = fileOperationHandler.createContextMenu();
         tableView.setContextMenu(contextMenu);
@@ -299,13 +310,13 @@ public class Controller {
                         if (selected.isDirectory()) {
                             navigationHandler.navigateTo(selected.getPath());
                         } else {
-                            fileOperationHandler.openFile(selected.getPath());
+                            fileOperationHandler.openItem(selected);
                         }
                     } else {
                         if (selected.isDirectory()) {
                             navigationHandler.navigateTo(selected.getPath());
                         } else {
-                            fileOperationHandler.openFile(selected.getPath());
+                            fileOperationHandler.openItem(selected);
                         }
                     }
                 }
@@ -585,6 +596,10 @@ public class Controller {
         }
     }
 
+    public SearchHandler getSearchHandler() {
+        return searchHandler;
+    }
+
     public NavigationHandler getNavigationHandler() {
         return navigationHandler;
     }
@@ -638,11 +653,15 @@ public class Controller {
     }
 
     public List<FileItem> getSelectedFileItems() {
+        List<FileItem> selected;
         if (isGridMode) {
-            return new ArrayList<>(selectedItemsInGrid);
+            selected = new ArrayList<>(selectedItemsInGrid);
         } else {
-            return new ArrayList<>(tableView.getSelectionModel().getSelectedItems());
+            selected = new ArrayList<>(tableView.getSelectionModel().getSelectedItems());
         }
+        // 压缩包内的条目只能打开，不参与复制、移动和删除（其路径指向整个压缩包）
+        selected.removeIf(item -> item.getArchiveEntry() != null);
+        return selected;
     }
 
     public Set<FileItem> getSelectedItemsInGrid() {
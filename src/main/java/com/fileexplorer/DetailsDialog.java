@@ -44,6 +44,7 @@ public class DetailsDialog extends Dialog<Void> {
                 AtomicLong size = new AtomicLong(0);
                 AtomicLong fileCount = new AtomicLong(0);
                 AtomicLong dirCount = new AtomicLong(0);
+                WalkPolicy policy = WalkPolicy.forSize();
 
                 Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
                     @Override
@@ -55,6 +56,10 @@ public class DetailsDialog extends Dialog<Void> {
 
                     @Override
                     public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes a) {
+                        FileVisitResult decision = policy.checkDirectory(dir, a, path);
+                        if (decision != FileVisitResult.CONTINUE) {
+                            return decision;
+                        }
                         if (!dir.equals(path)) { // 不计入自身
                             dirCount.incrementAndGet();
                         }
@@ -0,0 +1,277 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 重复文件查找：遍历时按大小分组，再依次用首尾 64KB 的哈希和完整哈希缩小候选，
+ * 每个阶段只处理上一阶段仍有重复的文件。哈希阶段以有限的并发度并行读取，
+ * 同一文件的多个硬链接（fileKey 相同）只计一次。
+ */
+public class DuplicateFinder {
+    private static final int EDGE_SIZE = 64 * 1024;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * 一组内容相同的文件
+     */
+    public static final class Group {
+        private final long size;
+        private final List<Path> files;
+
+        Group(long size, List<Path> files) {
+            this.size = size;
+            this.files = files;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public List<Path> getFiles() {
+            return files;
+        }
+
+        /**
+         * 每组只保留一份时可以释放的空间
+         */
+        public long getReclaimableBytes() {
+            return size * (files.size() - 1);
+        }
+    }
+
+    /**
+     * 单个阶段的I/O统计
+     */
+    private static final class StageStats {
+        final String name;
+        final LongAdder files = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        long nanos;
+
+        StageStats(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(nanos / 1e9, 0.001);
+            return String.format("%s %d 个, 读取 %s (%s/秒)", name, files.sum(),
+                    FileUtils.formatSize(bytes.sum()), FileUtils.formatSize((long) (bytes.sum() / seconds)));
+        }
+    }
+
+    private final int parallelism;
+    private final Map<Long, List<Path>> bySize = new HashMap<>();
+    private final Set<Object> seenKeys = new HashSet<>();
+    private long walkedFiles = 0;
+    private long hardLinks = 0;
+
+    private final StageStats edgeStage = new StageStats("首尾哈希");
+    private final StageStats fullStage = new StageStats("完整哈希");
+
+    /**
+     * @param parallelism 哈希阶段同时读取的文件数，一般由 FileUtils.recommendedIoParallelism 给出
+     */
+    public DuplicateFinder(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 由遍历线程调用，登记一个普通文件；空文件和重复的硬链接被忽略
+     */
+    public void add(Path file, BasicFileAttributes attrs) {
+        if (attrs.size() == 0) {
+            return;
+        }
+        Object key = attrs.fileKey();
+        if (key != null && !seenKeys.add(key)) {
+            hardLinks++;
+            return;
+        }
+        walkedFiles++;
+        bySize.computeIfAbsent(attrs.size(), size -> new ArrayList<>(2)).add(file);
+    }
+
+    /**
+     * 执行哈希阶段，返回按可回收空间从大到小排序的重复组
+     */
+    public List<Group> find(BooleanSupplier cancelCheck, Consumer<String> progress) {
+        List<Group> candidates = new ArrayList<>();
+        for (Map.Entry<Long, List<Path>> sameSize : bySize.entrySet()) {
+            if (sameSize.getValue().size() > 1) {
+                candidates.add(new Group(sameSize.getKey(), sameSize.getValue()));
+            }
+        }
+        bySize.clear();
+
+        // 第二阶段：首尾各 64KB；不超过 128KB 的文件此时已读完全部内容，不需要第三阶段
+        progress.accept("正在比较首尾内容: " + countFiles(candidates) + " 个候选文件");
+        List<Group> needFullHash = new ArrayList<>();
+        List<Group> groups = new ArrayList<>();
+        for (Group group : refine(candidates, true, edgeStage, cancelCheck)) {
+            if (group.size <= 2L * EDGE_SIZE) {
+                groups.add(group);
+            } else {
+                needFullHash.add(group);
+            }
+        }
+
+        // 第三阶段：完整内容
+        progress.accept("正在比较完整内容: " + countFiles(needFullHash) + " 个候选文件");
+        groups.addAll(refine(needFullHash, false, fullStage, cancelCheck));
+
+        groups.sort(Comparator.comparingLong(Group::getReclaimableBytes).reversed());
+        return groups;
+    }
+
+    /**
+     * 各阶段的文件数和I/O量
+     */
+    public String getStatsSummary() {
+        return String.format("遍历 %d 个文件 (硬链接 %d) | %s | %s", walkedFiles, hardLinks, edgeStage, fullStage);
+    }
+
+    /**
+     * 对每个候选组内的文件计算哈希，返回仍有重复的子组
+     */
+    private List<Group> refine(List<Group> groups, boolean edgesOnly, StageStats stats, BooleanSupplier cancelCheck) {
+        long start = System.nanoTime();
+        Map<Path, String> hashes = hashAll(groups, edgesOnly, stats, cancelCheck);
+        stats.nanos = System.nanoTime() - start;
+
+        List<Group> refined = new ArrayList<>();
+        for (Group group : groups) {
+            Map<String, List<Path>> byHash = new HashMap<>();
+            for (Path file : group.files) {
+                String hash = hashes.get(file);
+                if (hash != null) {
+                    byHash.computeIfAbsent(hash, h -> new ArrayList<>(2)).add(file);
+                }
+            }
+            for (List<Path> sameHash : byHash.values()) {
+                if (sameHash.size() > 1) {
+                    refined.add(new Group(group.size, sameHash));
+                }
+            }
+        }
+        return refined;
+    }
+
+    /**
+     * 固定数量的工作线程从共享队列取文件，限制同时进行的读取数
+     */
+    private Map<Path, String> hashAll(List<Group> groups, boolean edgesOnly, StageStats stats,
+                                     BooleanSupplier cancelCheck) {
+        ConcurrentLinkedQueue<Path> queue = new ConcurrentLinkedQueue<>();
+        groups.forEach(group -> queue.addAll(group.files));
+        Map<Path, String> hashes = new ConcurrentHashMap<>();
+        if (queue.isEmpty()) {
+            return hashes;
+        }
+
+        int workers = Math.min(parallelism, queue.size());
+        CountDownLatch done = new CountDownLatch(workers);
+        ExecutorService executor = ThreadPoolManager.getInstance().getSearchExecutor();
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                ByteBuffer buffer = BufferPool.getInstance().acquire(BUFFER_SIZE);
+                try {
+                    MessageDigest digest = newDigest();
+                    Path file;
+                    while (!cancelCheck.getAsBoolean() && (file = queue.poll()) != null) {
+                        try {
+                            hashes.put(file, hash(file, edgesOnly, buffer, digest, stats));
+                            stats.files.increment();
+                        } catch (IOException e) {
+                            System.err.println("读取文件失败: " + file + " - " + e.getMessage());
+                        }
+                    }
+                } finally {
+                    BufferPool.getInstance().release(buffer);
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return hashes;
+    }
+
+    private static String hash(Path file, boolean edgesOnly, ByteBuffer buffer, MessageDigest digest,
+                               StageStats stats) throws IOException {
+        digest.reset();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (edgesOnly && size > 2L * EDGE_SIZE) {
+                digestRange(channel, 0, EDGE_SIZE, buffer, digest, stats);
+                digestRange(channel, size - EDGE_SIZE, EDGE_SIZE, buffer, digest, stats);
+            } else {
+                digestRange(channel, 0, size, buffer, digest, stats);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void digestRange(FileChannel channel, long position, long length, ByteBuffer buffer,
+                                    MessageDigest digest, StageStats stats) throws IOException {
+        long end = position + length;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+            stats.bytes.add(read);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int countFiles(List<Group> groups) {
+        int count = 0;
+        for (Group group : groups) {
+            count += group.files.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,642 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * 单个文件的复制引擎，每块完成后报告进度并检查取消，复制失败或被取消时删除不完整的目标文件。
+ * 同一设备内按块调用 FileChannel.transferTo，由内核在页缓存之间直接传输（不经过Java堆）；
+ * 较大的文件跨设备复制时使用双缓冲流水线：读线程把源文件读入直接缓冲区，当前线程同时把已读好的缓冲区写入目标，
+ * 两个设备的I/O重叠进行，缓冲区从 BufferPool 借用。实例可被多个线程同时使用。
+ */
+public class FileCopier {
+    // 每次 transferTo 的块大小，兼顾进度粒度和系统调用次数
+    static final long CHUNK_SIZE = 8L * 1024 * 1024;
+
+    // 流水线的缓冲区个数和大小；小于阈值的文件不值得启动读线程
+    private static final int PIPELINE_BUFFERS = 4;
+    private static final int PIPELINE_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final long PIPELINE_MIN_SIZE = 16L * 1024 * 1024;
+
+    // 校验或稀疏模式下小文件按块读写的缓冲区大小；回读目标文件时使用同样大小的缓冲区
+    private static final int VERIFY_BUFFER_SIZE = 1024 * 1024;
+
+    // 稀疏复制按文件系统块检测全零数据；小于阈值的文件即使有空洞也节省不了多少空间
+    private static final int SPARSE_BLOCK_SIZE = 4096;
+    private static final long SPARSE_MIN_SIZE = 1024 * 1024;
+    private static final ByteBuffer ZERO_BLOCK = ByteBuffer.allocateDirect(SPARSE_BLOCK_SIZE);
+
+    // 读线程结束的标记
+    private static final ByteBuffer END_OF_FILE = ByteBuffer.allocate(0);
+
+    private LongConsumer progressListener = bytes -> { };
+    private Consumer<Path> fileListener = file -> { };
+    private BooleanSupplier cancelCheck = () -> false;
+    private boolean sync = false;
+    private TransferJournal journal;
+    private Verification verification = Verification.NONE;
+    private boolean sparse = false;
+
+    // 流水线两侧各自的字节数和忙碌时间，用于分别计算读写吞吐量
+    private final LongAdder readBytes = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder writeBytes = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+
+    // 所有复制的逻辑大小和写入的字节数（稀疏复制时跳过的全零块不计入写入）
+    private final LongAdder logicalBytes = new LongAdder();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final LongAdder copiedFiles = new LongAdder();
+
+    /**
+     * 每复制完一块回调一次，参数为该块的字节数
+     */
+    public void setProgressListener(LongConsumer progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * 开始复制每个文件时回调（参数为源文件），用于显示当前文件
+     */
+    public void setFileListener(Consumer<Path> fileListener) {
+        this.fileListener = fileListener;
+    }
+
+    /**
+     * 每块之间检查，返回true时中止复制
+     */
+    public void setCancelCheck(BooleanSupplier cancelCheck) {
+        this.cancelCheck = cancelCheck;
+    }
+
+    /**
+     * 完成前把目标文件的数据强制写入磁盘（移动时删除源文件之前需要）
+     */
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * 记录完成的文件和大文件的断点；日志中已完成的文件跳过，有断点的文件从断点继续
+     */
+    public void setJournal(TransferJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * 复制时校验：源数据在读入时计算摘要（不额外读取源文件），写完后只回读目标文件比较
+     */
+    public enum Verification {
+        NONE,
+        CRC32C,
+        SHA256
+    }
+
+    public void setVerification(Verification verification) {
+        this.verification = verification;
+    }
+
+    /**
+     * 保留空洞：复制时检测全零的块，在目标文件中跳过不写，目标保持稀疏。
+     * 需要逐块检查数据，同一设备内的大文件不再使用 transferTo
+     */
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
+    /**
+     * 目标文件回读的摘要与复制时源数据的摘要不一致，不一致的目标文件已删除
+     */
+    public static class ChecksumMismatchException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public ChecksumMismatchException(Path source, Verification verification, String expected, String actual) {
+            super(String.format("%s 校验不一致: %s (源 %s，副本 %s)", verification, source, expected, actual));
+        }
+    }
+
+    /**
+     * CRC32C 和 SHA-256 的统一接口，update 不改变缓冲区的 position
+     */
+    private abstract static class StreamDigest {
+        abstract void update(ByteBuffer buffer);
+
+        abstract String value();
+
+        static StreamDigest create(Verification verification) {
+            if (verification == Verification.SHA256) {
+                MessageDigest digest;
+                try {
+                    digest = MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+                return new StreamDigest() {
+                    @Override
+                    void update(ByteBuffer buffer) {
+                        digest.update(buffer.duplicate());
+                    }
+
+                    @Override
+                    String value() {
+                        StringBuilder hex = new StringBuilder();
+                        for (byte b : digest.digest()) {
+                            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                        }
+                        return hex.toString();
+                    }
+                };
+            }
+            CRC32C crc = new CRC32C();
+            return new StreamDigest() {
+                @Override
+                void update(ByteBuffer buffer) {
+                    crc.update(buffer.duplicate());
+                }
+
+                @Override
+                String value() {
+                    return String.format("%08x", crc.getValue());
+                }
+            };
+        }
+    }
+
+    /**
+     * 单个文件的复制状态（实例被多个线程共用，状态不能放在字段中）
+     */
+    private static final class Transfer {
+        final Path source;
+        final Path target;
+        // 只在使用断点日志时读取
+        final BasicFileAttributes sourceAttrs;
+        // 不校验时为null
+        final StreamDigest digest;
+        final boolean sparse;
+        long nextCheckpoint;
+        boolean checkpointed = false;
+        // 写入目标的字节数
+        long written = 0;
+
+        Transfer(Path source, Path target, BasicFileAttributes sourceAttrs, StreamDigest digest, boolean sparse,
+                 long start) {
+            this.source = source;
+            this.target = target;
+            this.sourceAttrs = sourceAttrs;
+            this.digest = digest;
+            this.sparse = sparse;
+            this.nextCheckpoint = start + TransferJournal.CHECKPOINT_INTERVAL;
+        }
+    }
+
+    /**
+     * 复制文件内容，目标已存在时覆盖。
+     *
+     * @throws CancellationException 复制被取消（不完整的目标已删除）
+     */
+    public void copy(Path source, Path target) throws IOException {
+        // 与 Files.copy 一致：源和目标是同一个文件时什么也不做，避免截断源文件
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            return;
+        }
+
+        fileListener.accept(source);
+        BasicFileAttributes sourceAttrs = null;
+        long start = 0;
+        if (journal != null) {
+            sourceAttrs = Files.readAttributes(source, BasicFileAttributes.class);
+            if (journal.isComplete(target, sourceAttrs)) {
+                progressListener.accept(sourceAttrs.size());
+                copiedFiles.increment();
+                return;
+            }
+            start = journal.resumeOffset(target, sourceAttrs);
+        }
+        StreamDigest digest = verification == Verification.NONE ? null : StreamDigest.create(verification);
+        Transfer transfer = null;
+
+        boolean sparseTarget = sparse && Files.size(source) >= SPARSE_MIN_SIZE;
+
+        boolean completed = false;
+        boolean discard = false;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = openTarget(target, start, sparseTarget)) {
+            long size = in.size();
+            transfer = new Transfer(source, target, sourceAttrs, digest, sparseTarget, start);
+            if (start > 0) {
+                // 断点之后的数据可能没有写入磁盘，从断点重新写
+                out.truncate(start);
+                out.position(start);
+                progressListener.accept(start);
+            }
+            long copied;
+            if (digest != null || transfer.sparse) {
+                // 校验和稀疏检测需要经过用户空间的数据，不能使用 transferTo；断点之前的部分只读取源文件计入摘要
+                if (digest != null && start > 0) {
+                    digestRange(in, 0, start, digest);
+                }
+                if (size - start >= PIPELINE_MIN_SIZE) {
+                    copied = pipelinedCopy(in, out, start, size, transfer);
+                } else {
+                    copied = bufferedCopy(in, out, start, size, transfer);
+                }
+            } else if (size - start >= PIPELINE_MIN_SIZE && !FileMover.isSameFileStore(source, target)) {
+                // 只对大文件查询文件系统（查询需要读取挂载表）
+                copied = pipelinedCopy(in, out, start, size, transfer);
+            } else {
+                copied = transferCopy(in, out, start, size, transfer);
+            }
+            // 只有复制到了源文件末尾才补齐长度，源文件中途变短时不能用零填充
+            if (transfer.sparse && copied == size && out.size() < size) {
+                // 文件以空洞结尾：写入最后一个字节，使目标的长度与源相同
+                out.write(ByteBuffer.allocate(1), size - 1);
+                transfer.written++;
+            }
+            logicalBytes.add(size - start);
+            writtenBytes.add(transfer.written);
+            if (sync || digest != null) {
+                // 回读校验之前先写入磁盘
+                out.force(true);
+            }
+            if (digest != null) {
+                verifyTarget(transfer);
+            }
+            completed = true;
+        } catch (CancellationException | ChecksumMismatchException e) {
+            discard = true;
+            throw e;
+        } finally {
+            // 出错时已记录断点的文件保留，恢复时从断点继续；用户取消或校验不一致时不再恢复
+            if (!completed && (discard || transfer == null || !transfer.checkpointed)) {
+                deletePartialTarget(target);
+            }
+        }
+        copiedFiles.increment();
+        if (journal != null) {
+            journal.complete(target, sourceAttrs);
+        }
+    }
+
+    /**
+     * 已完成的文件数（包括恢复时跳过的文件）
+     */
+    public long getCopiedFiles() {
+        return copiedFiles.sum();
+    }
+
+    public long getLogicalBytes() {
+        return logicalBytes.sum();
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes.sum();
+    }
+
+    /**
+     * 稀疏复制跳过的全零数据量，没有跳过任何数据时返回空字符串。
+     * 目标文件以稀疏文件创建，跳过的区域是否真正不占空间由文件系统决定，这里不统计实际占用
+     */
+    public String getSparseSummary() {
+        long logical = logicalBytes.sum();
+        long written = writtenBytes.sum();
+        if (written >= logical) {
+            return "";
+        }
+        return String.format("逻辑大小 %s，其中全零数据 %s 未写入（以稀疏文件创建）", FileUtils.formatSize(logical),
+                FileUtils.formatSize(logical - written));
+    }
+
+    /**
+     * 最近使用流水线的复制中读写两侧各自的吞吐量，没有使用过流水线时返回空字符串
+     */
+    public String getStatsSummary() {
+        if (readNanos.sum() == 0 || writeNanos.sum() == 0) {
+            return "";
+        }
+        return String.format("读取 %s/秒，写入 %s/秒",
+                FileUtils.formatSize((long) (readBytes.sum() / (readNanos.sum() / 1e9))),
+                FileUtils.formatSize((long) (writeBytes.sum() / (writeNanos.sum() / 1e9))));
+    }
+
+    /**
+     * 打开目标文件：从断点继续时打开已有文件；稀疏复制时删除已有的目标后以 CREATE_NEW 和 SPARSE 新建
+     * （SPARSE 只在新建文件时生效，NTFS 上文件被标记为稀疏后，没有写入的区域才不分配空间）
+     */
+    private static FileChannel openTarget(Path target, long start, boolean sparse) throws IOException {
+        if (start > 0) {
+            return FileChannel.open(target, StandardOpenOption.WRITE);
+        }
+        if (sparse) {
+            Files.deleteIfExists(target);
+            return FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.SPARSE);
+        }
+        return FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private long transferCopy(FileChannel in, FileChannel out, long start, long size, Transfer transfer)
+            throws IOException {
+        long position = start;
+        while (position < size) {
+            checkCancelled(transfer.source);
+            long transferred = in.transferTo(position, Math.min(CHUNK_SIZE, size - position), out);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            transfer.written += transferred;
+            progressListener.accept(transferred);
+            checkpointIfDue(out, transfer, position);
+        }
+        checkComplete(transfer.source, position, size);
+        return position;
+    }
+
+    /**
+     * 校验或稀疏模式下的小文件：读入缓冲区，计入摘要后写出
+     */
+    private long bufferedCopy(FileChannel in, FileChannel out, long start, long size, Transfer transfer)
+            throws IOException {
+        BufferPool pool = BufferPool.getInstance();
+        ByteBuffer buffer = pool.acquire(VERIFY_BUFFER_SIZE);
+        try {
+            long position = start;
+            while (position < size) {
+                checkCancelled(transfer.source);
+                buffer.clear();
+                int read = in.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                buffer.flip();
+                if (transfer.digest != null) {
+                    transfer.digest.update(buffer);
+                }
+                writeAt(out, buffer, position, transfer);
+                position += read;
+                progressListener.accept(read);
+                checkpointIfDue(out, transfer, position);
+            }
+            checkComplete(transfer.source, position, size);
+            return position;
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * 把缓冲区写到目标文件的 position 处；稀疏模式下全零的块不写，留下空洞
+     * （目标文件在复制前已截断，跳过的区域读出来就是零）
+     */
+    private static void writeAt(FileChannel out, ByteBuffer buffer, long position, Transfer transfer)
+            throws IOException {
+        if (!transfer.sparse) {
+            transfer.written += writeFully(out, buffer, position);
+            return;
+        }
+
+        int base = buffer.position();
+        int end = buffer.limit();
+        int runStart = -1;
+        for (int block = base; block < end; block += SPARSE_BLOCK_SIZE) {
+            int blockEnd = Math.min(block + SPARSE_BLOCK_SIZE, end);
+            boolean zero = buffer.slice(block, blockEnd - block).mismatch(ZERO_BLOCK.slice(0, blockEnd - block)) < 0;
+            if (!zero && runStart < 0) {
+                runStart = block;
+            } else if (zero && runStart >= 0) {
+                transfer.written += writeFully(out, buffer.slice(runStart, block - runStart),
+                        position + runStart - base);
+                runStart = -1;
+            }
+        }
+        if (runStart >= 0) {
+            transfer.written += writeFully(out, buffer.slice(runStart, end - runStart), position + runStart - base);
+        }
+        buffer.position(end);
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+        return length;
+    }
+
+    private static void digestRange(FileChannel channel, long start, long end, StreamDigest digest)
+            throws IOException {
+        BufferPool pool = BufferPool.getInstance();
+        ByteBuffer buffer = pool.acquire(VERIFY_BUFFER_SIZE);
+        try {
+            long position = start;
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(VERIFY_BUFFER_SIZE, end - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                buffer.flip();
+                digest.update(buffer);
+                position += read;
+            }
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * 目标文件写入磁盘后，回读计算摘要并与源数据的摘要比较
+     */
+    private void verifyTarget(Transfer transfer) throws IOException {
+        StreamDigest actual = StreamDigest.create(verification);
+        BufferPool pool = BufferPool.getInstance();
+        ByteBuffer buffer = pool.acquire(VERIFY_BUFFER_SIZE);
+        try (FileChannel in = FileChannel.open(transfer.target, StandardOpenOption.READ)) {
+            long position = 0;
+            while (true) {
+                checkCancelled(transfer.source);
+                buffer.clear();
+                int read = in.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                buffer.flip();
+                actual.update(buffer);
+                position += read;
+            }
+        } finally {
+            pool.release(buffer);
+        }
+
+        String expected = transfer.digest.value();
+        String copied = actual.value();
+        if (!expected.equals(copied)) {
+            throw new ChecksumMismatchException(transfer.source, verification, expected, copied);
+        }
+    }
+
+    /**
+     * 双缓冲流水线：空闲缓冲区在两个队列之间循环，读线程最多领先写入 PIPELINE_BUFFERS 个缓冲区
+     */
+    private long pipelinedCopy(FileChannel in, FileChannel out, long start, long size, Transfer transfer)
+            throws IOException {
+        Path source = transfer.source;
+        BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(PIPELINE_BUFFERS);
+        // 多留一个位置给结束标记，读线程放入结束标记时不会阻塞
+        BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>(PIPELINE_BUFFERS + 1);
+        BufferPool pool = BufferPool.getInstance();
+        ByteBuffer[] buffers = new ByteBuffer[PIPELINE_BUFFERS];
+        for (int i = 0; i < PIPELINE_BUFFERS; i++) {
+            buffers[i] = pool.acquire(PIPELINE_BUFFER_SIZE);
+            free.add(buffers[i]);
+        }
+
+        AtomicReference<IOException> readFailure = new AtomicReference<>();
+        CountDownLatch readerDone = new CountDownLatch(1);
+        ThreadPoolManager.getInstance().getCopyExecutor().execute(() -> {
+            try {
+                long position = start;
+                while (position < size) {
+                    ByteBuffer buffer = free.take();
+                    buffer.clear();
+                    long began = System.nanoTime();
+                    int read = in.read(buffer, position);
+                    readNanos.add(System.nanoTime() - began);
+                    if (read <= 0) {
+                        break;
+                    }
+                    readBytes.add(read);
+                    position += read;
+                    buffer.flip();
+                    if (transfer.digest != null) {
+                        transfer.digest.update(buffer);
+                    }
+                    filled.put(buffer);
+                }
+            } catch (IOException e) {
+                readFailure.set(e);
+            } catch (InterruptedException e) {
+                // 写入侧已中止
+            } finally {
+                filled.offer(END_OF_FILE);
+                readerDone.countDown();
+            }
+        });
+
+        boolean finished = false;
+        long written = start;
+        try {
+            while (true) {
+                checkCancelled(source);
+                ByteBuffer buffer = filled.take();
+                if (buffer == END_OF_FILE) {
+                    break;
+                }
+                int length = buffer.remaining();
+                long began = System.nanoTime();
+                writeAt(out, buffer, written, transfer);
+                writeNanos.add(System.nanoTime() - began);
+                writeBytes.add(length);
+                progressListener.accept(length);
+                free.put(buffer);
+                written += length;
+                checkpointIfDue(out, transfer, written);
+            }
+            if (readFailure.get() != null) {
+                throw readFailure.get();
+            }
+            checkComplete(source, written, size);
+            finished = true;
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("复制被中断: " + source);
+        } finally {
+            if (!finished) {
+                // 读线程可能阻塞在队列上：清空已读好的缓冲区，并放入空缓冲区（读取0字节即退出），
+                // 等它结束后才能关闭通道
+                free.clear();
+                for (int i = 0; i < PIPELINE_BUFFERS; i++) {
+                    free.offer(ByteBuffer.allocate(0));
+                }
+                filled.clear();
+            }
+            awaitReader(readerDone);
+            // 读线程结束后才归还，中止时不在队列中的缓冲区也一并归还
+            for (ByteBuffer buffer : buffers) {
+                pool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * 复制循环提前读到文件末尾说明源文件在复制过程中被截断，不能当作复制成功
+     */
+    private static void checkComplete(Path source, long position, long size) throws IOException {
+        if (position < size) {
+            throw new IOException("源文件在复制过程中被截断: " + source + " (应为 " + size + " 字节，只读到 "
+                    + position + " 字节)");
+        }
+    }
+
+    /**
+     * 每复制 CHECKPOINT_INTERVAL 字节，把已写入的数据同步到磁盘后记录断点
+     */
+    private void checkpointIfDue(FileChannel out, Transfer transfer, long position) throws IOException {
+        if (journal == null || position < transfer.nextCheckpoint || position >= transfer.sourceAttrs.size()) {
+            return;
+        }
+        out.force(false);
+        journal.checkpoint(transfer.target, transfer.sourceAttrs, position);
+        transfer.checkpointed = true;
+        transfer.nextCheckpoint = position + TransferJournal.CHECKPOINT_INTERVAL;
+    }
+
+    private static void awaitReader(CountDownLatch readerDone) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                readerDone.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkCancelled(Path source) {
+        if (cancelCheck.getAsBoolean()) {
+            throw new CancellationException("复制已取消: " + source);
+        }
+    }
+
+    private static void deletePartialTarget(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            System.err.println("删除不完整的目标文件失败: " + target + " - " + e.getMessage());
+        }
+    }
+}
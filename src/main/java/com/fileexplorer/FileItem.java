@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 
@@ -23,8 +24,12 @@ public class FileItem {
     private final boolean isDirectory;
     private final ObjectProperty<Image> icon;
 
+    // 压缩包内的条目名称，普通文件为null（此时 path 指向压缩包本身）
+    private final String archiveEntry;
+
     public FileItem(Path path) {
         this.path = path;
+        this.archiveEntry = null;
         if (path.toString().equals("此电脑")) {
             this.name = new SimpleStringProperty("此电脑");
             this.isDirectory = true;
@@ -64,6 +69,26 @@ public class FileItem {
         this.icon = new SimpleObjectProperty<>(tempIcon);
     }
 
+    /**
+     * 压缩包内的条目，显示为 archive.zip!/path/inside，不访问磁盘
+     */
+    public FileItem(Path archive, String entryName, long entrySize, long modifiedMillis) {
+        this.path = archive;
+        this.archiveEntry = entryName;
+        this.isDirectory = false;
+        this.name = new SimpleStringProperty(archive.getFileName() + "!/" + entryName);
+
+        String entryFileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+        int dotIndex = entryFileName.lastIndexOf('.');
+        this.type = new SimpleStringProperty(dotIndex > 0
+                ? entryFileName.substring(dotIndex + 1).toUpperCase() + " 文件 (压缩包内)" : "压缩包内文件");
+        this.size = new SimpleLongProperty(entrySize);
+        this.modifiedTime = new SimpleObjectProperty<>(modifiedMillis > 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(modifiedMillis), ZoneId.systemDefault())
+                : null);
+        this.icon = new SimpleObjectProperty<>(IconManager.getInstance().getIconForFile(archive));
+    }
+
     public void setIcon(Image icon) {
         this.icon.set(icon);
     }
@@ -132,7 +157,18 @@ public class FileItem {
         return isDirectory;
     }
 
+    /**
+     * 压缩包内的条目名称；普通文件返回null
+     */
+    public String getArchiveEntry() {
+        return archiveEntry;
+    }
+
     public void setSize(long newSize) {
         size.set(newSize);
     }
+
+    public void setType(String newType) {
+        type.set(newType);
+    }
 }
\ No newline at end of file
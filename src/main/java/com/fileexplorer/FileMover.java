@@ -0,0 +1,172 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 移动引擎：先比较源和目标所在的文件系统。
+ * 同一文件系统内直接原子改名，与数据量无关；跨文件系统时逐个文件“复制、校验、删除源文件”，
+ * 源文件只在其副本已写入磁盘并校验通过后才删除，中途失败或取消不会丢失数据。
+ */
+public class FileMover {
+    private final FileCopier fileCopier;
+    private BooleanSupplier cancelCheck = () -> false;
+    // 被遍历策略跳过、留在源位置的子树和因此保留的源目录
+    private final List<String> skipped = new ArrayList<>();
+
+    /**
+     * @param fileCopier 跨文件系统时使用的复制引擎，会被设置为写入后同步到磁盘
+     */
+    public FileMover(FileCopier fileCopier) {
+        this.fileCopier = fileCopier;
+        this.fileCopier.setSync(true);
+    }
+
+    public void setCancelCheck(BooleanSupplier cancelCheck) {
+        this.cancelCheck = cancelCheck;
+    }
+
+    /**
+     * 源和目标（目标不存在时取其父目录）是否位于同一文件系统；无法确定时返回false
+     */
+    public static boolean isSameFileStore(Path source, Path target) {
+        try {
+            Path existingTarget = Files.exists(target) ? target : target.getParent();
+            if (existingTarget == null) {
+                return false;
+            }
+            FileStore sourceStore = Files.getFileStore(source);
+            FileStore targetStore = Files.getFileStore(existingTarget);
+            return sourceStore.equals(targetStore);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 移动文件或目录。
+     *
+     * @return true 表示通过改名完成（没有复制数据）
+     * @throws CancellationException 移动被取消（已移动的文件保留在目标位置，其余仍在源位置）
+     */
+    public boolean move(Path source, Path target) throws IOException {
+        if (isSameFileStore(source, target)) {
+            try {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            } catch (AtomicMoveNotSupportedException e) {
+                // 同一设备的不同挂载点（例如 bind mount）之间不能改名，按跨文件系统处理
+            }
+        }
+
+        if (Files.isDirectory(source, LinkOption.NOFOLLOW_LINKS)) {
+            moveDirectory(source, target);
+        } else {
+            moveFile(source, target, Files.readAttributes(source, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS));
+        }
+        return false;
+    }
+
+    private void moveDirectory(Path sourceDir, Path targetDir) throws IOException {
+        WalkPolicy policy = WalkPolicy.forCopy();
+        Deque<FileTime> directoryTimes = new ArrayDeque<>();
+
+        Files.walkFileTree(sourceDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (cancelCheck.getAsBoolean()) {
+                    throw new CancellationException("移动已取消: " + sourceDir);
+                }
+                FileVisitResult decision = policy.checkDirectory(dir, attrs, sourceDir);
+                if (decision != FileVisitResult.CONTINUE) {
+                    return decision;
+                }
+
+                Path target = targetDir.resolve(sourceDir.relativize(dir));
+                try {
+                    Files.createDirectory(target);
+                } catch (FileAlreadyExistsException e) {
+                    if (!Files.isDirectory(target)) {
+                        throw e;
+                    }
+                }
+                directoryTimes.push(attrs.lastModifiedTime());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (cancelCheck.getAsBoolean()) {
+                    throw new CancellationException("移动已取消: " + sourceDir);
+                }
+                moveFile(file, targetDir.resolve(sourceDir.relativize(file)), attrs);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Path target = targetDir.resolve(sourceDir.relativize(dir));
+                Files.setLastModifiedTime(target, directoryTimes.pop());
+                try {
+                    Files.delete(dir);
+                } catch (DirectoryNotEmptyException e) {
+                    // 被遍历策略跳过的子目录仍留在源位置，源目录保留
+                    skipped.add("源目录未清空，已保留: " + dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        for (Path dir : policy.getSkippedDirectories()) {
+            skipped.add("未移动（按遍历设置跳过）: " + dir);
+        }
+    }
+
+    /**
+     * 被跳过的子树和保留的源目录，每项为一条说明
+     */
+    public List<String> getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * 复制单个文件，校验后删除源文件；符号链接按链接本身移动
+     */
+    private void moveFile(Path source, Path target, BasicFileAttributes attrs) throws IOException {
+        if (attrs.isSymbolicLink()) {
+            Files.copy(source, target, LinkOption.NOFOLLOW_LINKS, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(source);
+            return;
+        }
+
+        fileCopier.copy(source, target);
+        long copiedSize = Files.size(target);
+        if (copiedSize != attrs.size()) {
+            Files.deleteIfExists(target);
+            throw new IOException("校验失败，源文件已保留: " + source + " (源 " + attrs.size() + " 字节，副本 "
+                    + copiedSize + " 字节)");
+        }
+        Files.setLastModifiedTime(target, attrs.lastModifiedTime());
+        Files.delete(source);
+    }
+}
@@ -6,6 +6,7 @@ import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.control.Button;
 import javafx.scene.control.Dialog;
+import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
@@ -24,6 +25,9 @@ import java.util.stream.Collectors;
  */
 public class FileOperationHandler {
     private final Controller controller;
+    // 粘贴时保留稀疏文件的空洞（右键菜单中开启）。默认关闭：逐块检测全零数据比 transferTo 慢，
+    // 并且会把预分配的全零区域变成空洞
+    private boolean preserveSparse = false;
 
     public FileOperationHandler(Controller controller) {
         this.controller = controller;
@@ -85,8 +89,26 @@ public class FileOperationHandler {
     }
 
     public void executeBatchOperation(BatchFileOperationTask.OperationType type, List<Path> sourcePaths, Path targetDir) {
-        BatchFileOperationTask task = new BatchFileOperationTask(type, sourcePaths, targetDir, controller.getPrimaryStage());
+        runBatchTask(new BatchFileOperationTask(type, sourcePaths, targetDir, controller.getPrimaryStage()), type);
+    }
+
+    /**
+     * 启动时检查上次未完成的复制/移动，逐个询问是否继续；不继续时删除不完整的目标文件
+     */
+    public void offerPendingTransfers() {
+        for (TransferJournal journal : TransferJournal.findPending()) {
+            String operation = journal.getType() == BatchFileOperationTask.OperationType.MOVE ? "移动" : "复制";
+            String message = String.format("上次%s到 %s 的操作没有完成（%d 个项目，已完成 %d 个文件）。是否继续？",
+                    operation, journal.getTargetDir(), journal.getSourcePaths().size(), journal.getCompletedCount());
+            if (UIUtils.showConfirmDialog("恢复未完成的操作", message)) {
+                runBatchTask(new BatchFileOperationTask(journal, controller.getPrimaryStage()), journal.getType());
+            } else {
+                journal.discard();
+            }
+        }
+    }
 
+    private void runBatchTask(BatchFileOperationTask task, BatchFileOperationTask.OperationType type) {
         Dialog<Void> progressDialog = task.createProgressDialog();
 
         task.setOnSucceeded(e -> Platform.runLater(() -> {
@@ -121,6 +143,18 @@ public class FileOperationHandler {
         MenuItem paste = new MenuItem("粘贴");
         paste.setOnAction(e -> paste());
 
+        // 复制时同时计算摘要，完成后回读目标文件校验
+        Menu verifiedPaste = new Menu("粘贴并校验");
+        MenuItem crcPaste = new MenuItem("CRC32C（快速）");
+        crcPaste.setOnAction(e -> paste(FileCopier.Verification.CRC32C));
+        MenuItem shaPaste = new MenuItem("SHA-256");
+        shaPaste.setOnAction(e -> paste(FileCopier.Verification.SHA256));
+        verifiedPaste.getItems().addAll(crcPaste, shaPaste);
+
+        CheckMenuItem sparseOption = new CheckMenuItem("保留稀疏文件空洞");
+        sparseOption.setSelected(preserveSparse);
+        sparseOption.setOnAction(e -> preserveSparse = sparseOption.isSelected());
+
         MenuItem delete = new MenuItem("删除");
         delete.setOnAction(e -> deleteSelected());
 
@@ -134,18 +168,19 @@ public class FileOperationHandler {
         properties.setOnAction(e -> showProperties());
 
         paste.disableProperty().bind(Bindings.createBooleanBinding(() -> controller.getClipboardManager().isEmpty() || controller.getCurrentPath() == null, controller.getPathField().textProperty()));
+        verifiedPaste.disableProperty().bind(paste.disableProperty());
 
-        menu.getItems().addAll(copy, cut, paste, new SeparatorMenuItem(), delete, rename, newFolder, new SeparatorMenuItem(), properties);
+        menu.getItems().addAll(copy, cut, paste, verifiedPaste, sparseOption, new SeparatorMenuItem(), delete, rename, newFolder, new SeparatorMenuItem(), properties);
         return menu;
     }
 
     public void handleGridItemClick(MouseEvent event, Button button, FileItem item) {
         if (event.getButton() == MouseButton.PRIMARY) {
             if (event.getClickCount() == 2) {
-                if (Files.isDirectory(item.getPath())) {
+                if (item.isDirectory()) {
                     controller.getNavigationHandler().navigateTo(item.getPath());
                 } else {
-                    openFile(item.getPath());
+                    openItem(item);
                 }
             } else {
                 Set<FileItem> selected = controller.getSelectedItemsInGrid();
@@ -173,6 +208,27 @@ public class FileOperationHandler {
         }
     }
 
+    /**
+     * 打开文件；压缩包内的条目先在后台解压到临时目录再打开
+     */
+    public void openItem(FileItem item) {
+        if (item.getArchiveEntry() == null) {
+            openFile(item.getPath());
+            return;
+        }
+        controller.getThreadPool().submitFileOperation(() -> {
+            try {
+                Path extracted = FileOperationTask.extractEntryToTemp(item.getPath(), item.getArchiveEntry());
+                Platform.runLater(() -> openFile(extracted));
+            } catch (IOException e) {
+                Platform.runLater(() -> UIUtils.showAlert("错误", "无法打开压缩包内的文件: " + e.getMessage()));
+            } catch (RuntimeException e) {
+                // zipfs 的运行时异常（如条目名不合法、压缩包损坏）同样提示，不能在线程池中丢失
+                Platform.runLater(() -> UIUtils.showAlert("错误", "无法打开压缩包内的文件: " + e));
+            }
+        });
+    }
+
     public void openFile(Path path) {
         try {
             Desktop.getDesktop().open(path.toFile());
@@ -306,6 +362,10 @@ public class FileOperationHandler {
     }
 
     public void paste() {
+        paste(FileCopier.Verification.NONE);
+    }
+
+    public void paste(FileCopier.Verification verification) {
         ClipboardManager clipboard = controller.getClipboardManager();
         if (clipboard.isEmpty() || controller.getCurrentPath() == null) {
             return;
@@ -336,7 +396,11 @@ public class FileOperationHandler {
         }
 
         BatchFileOperationTask.OperationType operationType = isCut ? BatchFileOperationTask.OperationType.MOVE : BatchFileOperationTask.OperationType.COPY;
-        executeBatchOperation(operationType, clipboardItems, controller.getCurrentPath());
+        BatchFileOperationTask task = new BatchFileOperationTask(operationType, clipboardItems,
+                controller.getCurrentPath(), controller.getPrimaryStage());
+        task.setVerification(verification);
+        task.setSparse(preserveSparse);
+        runBatchTask(task, operationType);
 
         if (isCut) {
             clipboard.clearClipboard();
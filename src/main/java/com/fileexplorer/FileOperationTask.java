@@ -13,7 +13,9 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -38,6 +40,8 @@ public class FileOperationTask extends Task<Void> {
 
     // 用于取消操作的标志
     private volatile boolean cancelledByUser = false;
+    // 复制或移动目录时被跳过的子树
+    private final List<String> skipped = new ArrayList<>();
 
     public FileOperationTask(OperationType type, Path source, Path target) {
         this.type = type;
@@ -56,8 +60,10 @@ public class FileOperationTask extends Task<Void> {
     @Override
     protected Void call() throws Exception {
         try {
-            // 计算总字节数
-            calculateTotalBytes();
+            // 计算总字节数（同一文件系统内的移动只是改名，不需要统计）
+            if (type != OperationType.MOVE || !FileMover.isSameFileStore(source, target)) {
+                calculateTotalBytes();
+            }
 
             switch (type) {
                 case COPY:
@@ -95,6 +101,7 @@ public class FileOperationTask extends Task<Void> {
         updateMessageSafe("正在计算文件大小...");
 
         if (Files.isDirectory(source)) {
+            WalkPolicy policy = WalkPolicy.forCopy();
             Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
@@ -107,7 +114,7 @@ public class FileOperationTask extends Task<Void> {
 
                 @Override
                 public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                    return isCancelled() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                    return isCancelled() ? FileVisitResult.TERMINATE : policy.checkDirectory(dir, attrs, source);
                 }
             });
         } else {
@@ -147,46 +154,33 @@ public class FileOperationTask extends Task<Void> {
     }
 
     private void copyDirectory(Path sourceDir, Path targetDir) throws IOException {
-        Files.walkFileTree(sourceDir, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                if (isCancelled()) {
-                    return FileVisitResult.TERMINATE;
-                }
-
-                Path relative = sourceDir.relativize(dir);
-                Path targetPath = targetDir.resolve(relative);
-
-                if (!Files.exists(targetPath)) {
-                    Files.createDirectories(targetPath);
-                }
-
-                updateMessageSafe("创建目录: " + targetPath.getFileName());
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                if (isCancelled()) {
-                    return FileVisitResult.TERMINATE;
-                }
-
-                Path relative = sourceDir.relativize(file);
-                Path targetFile = targetDir.resolve(relative);
-
-                copyFileWithProgress(file, targetFile);
-                return FileVisitResult.CONTINUE;
-            }
-        });
+        updateMessageSafe("复制目录: " + sourceDir.getFileName());
+
+        // 目录先按遍历顺序创建，文件由有界的工作线程并行复制
+        TreeCopier treeCopier = new TreeCopier(createCopier());
+        treeCopier.setCancelCheck(this::isCancelled);
+        treeCopier.copy(sourceDir, targetDir);
+        skipped.addAll(treeCopier.getSkipped());
+        updateMessageSafe(treeCopier.getStatsSummary());
     }
 
     private void copyFileWithProgress(Path sourceFile, Path targetFile) throws IOException {
         updateMessageSafe("复制文件: " + sourceFile.getFileName());
 
-        long fileSize = Files.size(sourceFile);
-        Files.copy(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        // 按块复制，大文件在复制过程中也能看到进度并随时取消；跨设备时读写重叠进行
+        FileCopier copier = createCopier();
+        copier.copy(sourceFile, targetFile);
+        String stats = copier.getStatsSummary();
+        if (!stats.isEmpty()) {
+            updateMessageSafe(stats);
+        }
+    }
 
-        updateProgressSafe(fileSize);
+    private FileCopier createCopier() {
+        FileCopier copier = new FileCopier();
+        copier.setProgressListener(this::updateProgressSafe);
+        copier.setCancelCheck(this::isCancelled);
+        return copier;
     }
 
     private void copyFile(Path sourceFile, Path targetFile) throws IOException {
@@ -194,17 +188,19 @@ public class FileOperationTask extends Task<Void> {
     }
 
     /**
-     * 移动操作（先复制后删除）
+     * 移动操作：同一文件系统内原子改名，跨文件系统时逐个文件复制、校验后删除源文件
      */
     private void moveOperation() throws IOException {
         updateMessageSafe("开始移动文件...");
 
-        // 先复制
-        copyOperation();
-
-        if (!isCancelled()) {
-            // 然后删除源文件
-            deleteOperation();
+        FileMover mover = new FileMover(createCopier());
+        mover.setCancelCheck(this::isCancelled);
+        try {
+            if (mover.move(source, target)) {
+                updateMessageSafe("已在同一文件系统内移动: " + source.getFileName());
+            }
+        } finally {
+            skipped.addAll(mover.getSkipped());
         }
     }
 
@@ -262,7 +258,7 @@ public class FileOperationTask extends Task<Void> {
         }
 
         // 使用URI创建文件系统（避免方法重载歧义）
-        URI zipUri = URI.create("jar:" + source.toUri());
+        URI zipUri = archiveUri(source);
 
         try (FileSystem zipFs = FileSystems.newFileSystem(zipUri, Collections.emptyMap())) {
             Path root = zipFs.getPath("/");
@@ -313,6 +309,31 @@ public class FileOperationTask extends Task<Void> {
         }
     }
 
+    /**
+     * 压缩包对应的 zipfs URI（解压和打开压缩包内的文件共用）
+     */
+    static URI archiveUri(Path archive) {
+        return URI.create("jar:" + archive.toUri());
+    }
+
+    /**
+     * 把压缩包内的单个条目解压到临时目录，供系统默认程序打开；程序退出时删除
+     */
+    static Path extractEntryToTemp(Path archive, String entryName) throws IOException {
+        // 按路径创建的文件系统不登记到全局表，与正在解压同一压缩包的任务不会冲突（FileSystemAlreadyExistsException）
+        try (FileSystem zipFs = FileSystems.newFileSystem(archive)) {
+            Path entry = zipFs.getPath(entryName);
+            Path tempDir = Files.createTempDirectory("fileexplorer-");
+            tempDir.toFile().deleteOnExit();
+            Path target = tempDir.resolve(entry.getFileName().toString());
+            Files.copy(entry, target, StandardCopyOption.REPLACE_EXISTING);
+            target.toFile().deleteOnExit();
+            return target;
+        } catch (ProviderNotFoundException e) {
+            throw new IOException("不支持的压缩包格式: " + archive.getFileName(), e);
+        }
+    }
+
     /**
      * 计算压缩包内文件总大小
      */
@@ -353,7 +374,11 @@ public class FileOperationTask extends Task<Void> {
     @Override
     protected void succeeded() {
         Platform.runLater(() -> {
-            showAlert("操作成功", "文件操作已成功完成");
+            if (skipped.isEmpty()) {
+                showAlert("操作成功", "文件操作已成功完成");
+            } else {
+                showAlert("操作完成", "操作完成，以下内容未处理:\n" + String.join("\n", skipped));
+            }
         });
     }
 
@@ -1,10 +1,13 @@
 package com.fileexplorer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
@@ -26,6 +29,14 @@ public class FileUtils {
             // ... (所有原始扩展名，保持原样)
     );
 
+    // 按文件头识别类型时读取的字节数
+    private static final int SIGNATURE_SIZE = 16;
+
+    // 网络文件系统类型，延迟高，适度并发可以掩盖往返时间
+    static final Set<String> NETWORK_FS_TYPES = Set.of(
+            "nfs", "nfs4", "cifs", "smbfs", "smb2", "smb3", "afpfs", "webdav", "davfs", "fuse.sshfs", "9p"
+    );
+
     public static String getFileTypeDescription(Path path) {
         if (Files.isDirectory(path)) {
             return "文件夹";
@@ -129,24 +140,37 @@ public class FileUtils {
         return "文件";
     }
 
+    /**
+     * 只读取文件开头的几个字节判断类型
+     */
     private static String detectFileBySignature(Path path) {
-        try {
-            byte[] header = Files.readAllBytes(path);
-            if (header.length >= 4) {
-                if (header[0] == 0x4D && header[1] == 0x5A) {
+        BufferPool pool = BufferPool.getInstance();
+        ByteBuffer header = pool.acquire(SIGNATURE_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满文件头
+            }
+            if (header.position() >= 4) {
+                int b0 = header.get(0) & 0xFF;
+                int b1 = header.get(1) & 0xFF;
+                int b2 = header.get(2) & 0xFF;
+                int b3 = header.get(3) & 0xFF;
+                if (b0 == 0x4D && b1 == 0x5A) {
                     return "可执行文件";
-                } else if (header[0] == 0x7F && header[1] == 0x45 && header[2] == 0x4C && header[3] == 0x46) {
+                } else if (b0 == 0x7F && b1 == 0x45 && b2 == 0x4C && b3 == 0x46) {
                     return "ELF 可执行文件";
-                } else if (header[0] == 0xCA && header[1] == 0xFE && header[2] == 0xBA && header[3] == 0xBE) {
+                } else if (b0 == 0xCA && b1 == 0xFE && b2 == 0xBA && b3 == 0xBE) {
                     return "Java 类文件";
-                } else if (header[0] == 0x25 && header[1] == 0x50 && header[2] == 0x44 && header[3] == 0x46) {
+                } else if (b0 == 0x25 && b1 == 0x50 && b2 == 0x44 && b3 == 0x46) {
                     return "PDF 文档";
-                } else if (header[0] == 0x50 && header[1] == 0x4B && header[2] == 0x03 && header[3] == 0x04) {
+                } else if (b0 == 0x50 && b1 == 0x4B && b2 == 0x03 && b3 == 0x04) {
                     return "压缩文件";
                 }
             }
         } catch (IOException e) {
             // 忽略
+        } finally {
+            pool.release(header);
         }
         return null;
     }
@@ -171,7 +195,13 @@ public class FileUtils {
         }
         try {
             AtomicLong size = new AtomicLong(0);
+            WalkPolicy policy = WalkPolicy.forSize();
             Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path subDir, BasicFileAttributes attrs) {
+                    return policy.checkDirectory(subDir, attrs, dir);
+                }
+
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
                     size.addAndGet(attrs.size());
@@ -259,4 +289,56 @@ public class FileUtils {
             return -1;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 根据路径所在的存储设备估算合适的并发读取数：
+     * 机械硬盘并发读会引发寻道，只用单线程；SSD/NVMe 按CPU数放大；网络文件系统适度并发
+     */
+    public static int recommendedIoParallelism(Path path) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        try {
+            FileStore store = Files.getFileStore(path);
+            if (NETWORK_FS_TYPES.contains(store.type().toLowerCase(Locale.ROOT))) {
+                return 4;
+            }
+            Boolean rotational = isRotational(store.name());
+            if (Boolean.TRUE.equals(rotational)) {
+                return 1;
+            }
+            if (Boolean.FALSE.equals(rotational)) {
+                return Math.max(2, Math.min(cpus, 8));
+            }
+        } catch (IOException | RuntimeException e) {
+            // 无法识别设备时使用默认值
+        }
+        return Math.max(2, Math.min(cpus, 4));
+    }
+
+    /**
+     * 通过 /sys/block/&lt;设备&gt;/queue/rotational 判断是否为机械硬盘，非Linux或无法识别时返回null
+     */
+    private static Boolean isRotational(String device) {
+        if (device == null || !device.startsWith("/dev/")) {
+            return null;
+        }
+        Path sysBlock = Paths.get("/sys/block");
+        if (!Files.isDirectory(sysBlock)) {
+            return null;
+        }
+
+        String name = device.substring("/dev/".length());
+        // 依次尝试完整名称、去掉分区号（sda1 -> sda，nvme0n1p2 -> nvme0n1）
+        String[] candidates = {name, name.replaceFirst("p\\d+$", ""), name.replaceFirst("\\d+$", "")};
+        for (String candidate : candidates) {
+            Path flag = sysBlock.resolve(candidate).resolve("queue").resolve("rotational");
+            if (!candidate.isEmpty() && Files.isReadable(flag)) {
+                try {
+                    return Files.readString(flag).trim().equals("1");
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
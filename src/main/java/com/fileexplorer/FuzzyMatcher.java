@@ -0,0 +1,249 @@
+package com.fileexplorer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 模糊文件名匹配：关键字的字符按顺序出现在文件名中即可（子序列），例如 "rptq3fin" 匹配 report_Q3_final.xlsx。
+ * 匹配分三步，越往后代价越高、经过的候选越少：
+ * 字符集位掩码预过滤（文件名缺少关键字中的任一字符即排除）、贪心子序列检查并确定匹配窗口、
+ * 在窗口内用动态规划求最优得分（单词边界、驼峰、连续字符加分，间隔扣分）。
+ * 实例带有复用的计算缓冲区，只由一个线程使用。
+ */
+public final class FuzzyMatcher {
+    private static final int SCORE_MATCH = 16;
+    private static final int GAP_START = -3;
+    private static final int GAP_EXTENSION = -1;
+    private static final int BONUS_BOUNDARY = 8;
+    private static final int BONUS_CAMEL = 7;
+    private static final int BONUS_CONSECUTIVE = 4;
+    // 关键字第一个字符的位置加分翻倍，优先匹配单词开头
+    private static final int FIRST_CHAR_MULTIPLIER = 2;
+
+    private static final int NONE = Integer.MIN_VALUE / 2;
+
+    /**
+     * 排行中的一项
+     */
+    public static final class Match {
+        private final Path path;
+        private final int score;
+
+        Match(Path path, int score) {
+            this.path = path;
+            this.score = score;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+
+    // 得分高者在前，同分时文件名短者在前
+    private static final Comparator<Match> BETTER_FIRST = Comparator.comparingInt(Match::getScore).reversed()
+            .thenComparingInt(match -> match.path.getFileName().toString().length());
+
+    private final char[] pattern;
+    private final long patternMask;
+
+    // 动态规划的两行和窗口内各位置的加分，按需扩容后复用
+    private int[] previousRow = new int[64];
+    private int[] currentRow = new int[64];
+    private int[] bonuses = new int[64];
+
+    private FuzzyMatcher(char[] pattern) {
+        this.pattern = pattern;
+        long mask = 0;
+        for (char c : pattern) {
+            mask |= maskOf(c);
+        }
+        this.patternMask = mask;
+    }
+
+    /**
+     * 编译关键字；空白字符被忽略，不区分大小写
+     */
+    public static FuzzyMatcher compile(String keyword) {
+        StringBuilder folded = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                folded.append(fold(c));
+            }
+        }
+        return new FuzzyMatcher(folded.toString().toCharArray());
+    }
+
+    public boolean isEmpty() {
+        return pattern.length == 0;
+    }
+
+    /**
+     * 计算 text[start, end) 的得分，不匹配时返回 -1
+     */
+    public int score(CharSequence text, int start, int end) {
+        int m = pattern.length;
+        if (m == 0 || end - start < m) {
+            return -1;
+        }
+
+        // 第一步：位掩码预过滤
+        long mask = 0;
+        for (int i = start; i < end; i++) {
+            mask |= maskOf(fold(text.charAt(i)));
+        }
+        if ((patternMask & ~mask) != 0) {
+            return -1;
+        }
+
+        // 第二步：贪心检查子序列，同时确定首字符的最早位置
+        int first = -1;
+        int matched = 0;
+        for (int i = start; i < end && matched < m; i++) {
+            if (fold(text.charAt(i)) == pattern[matched]) {
+                if (matched == 0) {
+                    first = i;
+                }
+                matched++;
+            }
+        }
+        if (matched < m) {
+            return -1;
+        }
+        // 末字符的最后一次出现之后不可能再有匹配，窗口为 [first, last]
+        int last = end - 1;
+        while (fold(text.charAt(last)) != pattern[m - 1]) {
+            last--;
+        }
+        int width = last - first + 1;
+        ensureCapacity(width);
+        for (int j = 0; j < width; j++) {
+            bonuses[j] = bonusAt(text, start, first + j);
+        }
+
+        // 第三步：动态规划，row[j] 表示关键字前 i+1 个字符匹配且第 i 个字符落在窗口位置 j 时的最高得分
+        int[] previous = previousRow;
+        int[] current = currentRow;
+        for (int j = 0; j < width; j++) {
+            previous[j] = fold(text.charAt(first + j)) == pattern[0]
+                    ? SCORE_MATCH + bonuses[j] * FIRST_CHAR_MULTIPLIER : NONE;
+        }
+        for (int i = 1; i < m; i++) {
+            int gap = NONE;
+            for (int j = 0; j < width; j++) {
+                if (j >= 2) {
+                    gap = Math.max(gap + GAP_EXTENSION, previous[j - 2] + GAP_START);
+                }
+                if (fold(text.charAt(first + j)) != pattern[i]) {
+                    current[j] = NONE;
+                    continue;
+                }
+                int best = gap;
+                if (j >= 1) {
+                    best = Math.max(best, previous[j - 1] + BONUS_CONSECUTIVE);
+                }
+                current[j] = best + SCORE_MATCH + bonuses[j];
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = NONE;
+        for (int j = 0; j < width; j++) {
+            best = Math.max(best, previous[j]);
+        }
+        return best <= NONE / 2 ? -1 : Math.max(best, 0);
+    }
+
+    /**
+     * 有界的前 K 名排行（小顶堆），新项只需与堆顶比较
+     */
+    public static final class Ranking {
+        private final int limit;
+        private final PriorityQueue<Match> heap;
+
+        public Ranking(int limit) {
+            this.limit = Math.max(1, limit);
+            this.heap = new PriorityQueue<>(this.limit + 1, BETTER_FIRST.reversed());
+        }
+
+        public void offer(Path path, int score) {
+            if (heap.size() < limit) {
+                heap.add(new Match(path, score));
+            } else if (score > heap.peek().score) {
+                heap.poll();
+                heap.add(new Match(path, score));
+            }
+        }
+
+        /**
+         * 当前排行，从高分到低分
+         */
+        public List<Match> getMatches() {
+            List<Match> matches = new ArrayList<>(heap);
+            matches.sort(BETTER_FIRST);
+            return matches;
+        }
+    }
+
+    private void ensureCapacity(int width) {
+        if (previousRow.length < width) {
+            int capacity = Math.max(width, previousRow.length * 2);
+            previousRow = new int[capacity];
+            currentRow = new int[capacity];
+            bonuses = new int[capacity];
+        }
+    }
+
+    /**
+     * 位置 index 处字符的加分：名称开头或分隔符之后为单词边界，小写转大写或字母转数字为驼峰边界
+     */
+    private static int bonusAt(CharSequence text, int start, int index) {
+        if (index == start) {
+            return BONUS_BOUNDARY;
+        }
+        char previous = text.charAt(index - 1);
+        char c = text.charAt(index);
+        if (!Character.isLetterOrDigit(previous)) {
+            return BONUS_BOUNDARY;
+        }
+        if (Character.isLowerCase(previous) && Character.isUpperCase(c)) {
+            return BONUS_CAMEL;
+        }
+        if (!Character.isDigit(previous) && Character.isDigit(c)) {
+            return BONUS_CAMEL;
+        }
+        return 0;
+    }
+
+    /**
+     * 字符在位掩码中的位：字母和数字各占一位，其他ASCII字符散列到剩余位，非ASCII字符共用最高位
+     */
+    private static long maskOf(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1L << (c - 'a');
+        }
+        if (c >= '0' && c <= '9') {
+            return 1L << (26 + c - '0');
+        }
+        if (c < 128) {
+            return 1L << (36 + c % 27);
+        }
+        return 1L << 63;
+    }
+
+    private static char fold(char c) {
+        if (c < 128) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+}
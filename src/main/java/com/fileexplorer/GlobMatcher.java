@@ -0,0 +1,237 @@
+package com.fileexplorer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译后的通配符匹配器，支持 * ? 和 [...]（[!...] 或 [^...] 表示取反，支持 a-z 范围），不区分大小写。
+ * 模式按 * 拆成定长片段：首尾片段锚定匹配，中间片段依次取最左出现位置，
+ * 最坏情况为 O(文本长度 × 模式长度)，不会出现递归回溯的指数爆炸。
+ * 匹配过程不分配内存，可直接作用于 CharSequence 的任意区间。
+ */
+public final class GlobMatcher {
+    private static final int LITERAL = 0;
+    private static final int ANY = 1;
+    private static final int CLASS = 2;
+
+    // ASCII 大小写折叠表，非ASCII字符使用 Character.toLowerCase
+    private static final char[] ASCII_FOLD = new char[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_FOLD[c] = (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    // 单字符匹配单元，value 为折叠后的字符或字符类下标
+    private final int[] kinds;
+    private final int[] values;
+
+    // 字符类：每个类的范围列表（已折叠）和是否取反
+    private final char[][] classRanges;
+    private final boolean[] classNegated;
+
+    // 以 * 分隔的片段在单元数组中的 [起, 止)
+    private final int[] segmentStart;
+    private final int[] segmentEnd;
+    private final boolean hasStar;
+
+    private GlobMatcher(List<int[]> units, List<char[]> ranges, List<Boolean> negated, List<int[]> segments,
+                        boolean hasStar) {
+        this.kinds = new int[units.size()];
+        this.values = new int[units.size()];
+        for (int i = 0; i < units.size(); i++) {
+            kinds[i] = units.get(i)[0];
+            values[i] = units.get(i)[1];
+        }
+
+        this.classRanges = ranges.toArray(new char[0][]);
+        this.classNegated = new boolean[negated.size()];
+        for (int i = 0; i < negated.size(); i++) {
+            classNegated[i] = negated.get(i);
+        }
+
+        this.segmentStart = new int[segments.size()];
+        this.segmentEnd = new int[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            segmentStart[i] = segments.get(i)[0];
+            segmentEnd[i] = segments.get(i)[1];
+        }
+        this.hasStar = hasStar;
+    }
+
+    /**
+     * 编译通配符模式
+     */
+    public static GlobMatcher compile(String glob) {
+        List<int[]> units = new ArrayList<>();
+        List<char[]> ranges = new ArrayList<>();
+        List<Boolean> negated = new ArrayList<>();
+        List<int[]> segments = new ArrayList<>();
+        boolean hasStar = false;
+        int segmentBegin = 0;
+
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                segments.add(new int[]{segmentBegin, units.size()});
+                segmentBegin = units.size();
+                hasStar = true;
+            } else if (c == '?') {
+                units.add(new int[]{ANY, 0});
+            } else if (c == '[' && findClassEnd(glob, i) > 0) {
+                int end = findClassEnd(glob, i);
+                int j = i + 1;
+                boolean negate = false;
+                if (glob.charAt(j) == '!' || glob.charAt(j) == '^') {
+                    negate = true;
+                    j++;
+                }
+
+                StringBuilder pairs = new StringBuilder();
+                while (j < end) {
+                    char lo = glob.charAt(j);
+                    char hi = lo;
+                    if (j + 2 < end && glob.charAt(j + 1) == '-') {
+                        hi = glob.charAt(j + 2);
+                        j += 2;
+                    }
+                    pairs.append(fold(lo)).append(fold(hi));
+                    j++;
+                }
+
+                units.add(new int[]{CLASS, ranges.size()});
+                ranges.add(pairs.toString().toCharArray());
+                negated.add(negate);
+                i = end;
+            } else {
+                units.add(new int[]{LITERAL, fold(c)});
+            }
+        }
+        segments.add(new int[]{segmentBegin, units.size()});
+
+        return new GlobMatcher(units, ranges, negated, segments, hasStar);
+    }
+
+    /**
+     * 把整个字符串当作普通字面量（不解析通配符），匹配包含该字面量的文本
+     */
+    public static GlobMatcher containing(String literal) {
+        List<int[]> units = new ArrayList<>();
+        for (int i = 0; i < literal.length(); i++) {
+            units.add(new int[]{LITERAL, fold(literal.charAt(i))});
+        }
+        List<int[]> segments = new ArrayList<>();
+        segments.add(new int[]{0, 0});
+        segments.add(new int[]{0, units.size()});
+        segments.add(new int[]{units.size(), units.size()});
+        return new GlobMatcher(units, new ArrayList<>(), new ArrayList<>(), segments, true);
+    }
+
+    /**
+     * 整个文本是否匹配
+     */
+    public boolean matches(CharSequence text) {
+        return matches(text, 0, text.length());
+    }
+
+    /**
+     * 文本的 [from, to) 区间是否匹配，用于直接匹配完整路径中的文件名部分
+     */
+    public boolean matches(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (!hasStar) {
+            return length == kinds.length && matchAt(text, from, 0, kinds.length);
+        }
+
+        int last = segmentStart.length - 1;
+        int headLength = segmentEnd[0] - segmentStart[0];
+        int tailLength = segmentEnd[last] - segmentStart[last];
+        if (headLength + tailLength > length) {
+            return false;
+        }
+        if (!matchAt(text, from, segmentStart[0], segmentEnd[0])) {
+            return false;
+        }
+        int limit = to - tailLength;
+        if (!matchAt(text, limit, segmentStart[last], segmentEnd[last])) {
+            return false;
+        }
+
+        // 中间片段取最左出现位置即可，不需要回溯
+        int position = from + headLength;
+        for (int s = 1; s < last; s++) {
+            int segmentLength = segmentEnd[s] - segmentStart[s];
+            int first = segmentStart[s];
+            // 片段以普通字符开头时，先用首字符跳过不可能的位置
+            boolean literalHead = segmentLength > 0 && kinds[first] == LITERAL;
+            int found = -1;
+            for (int p = position; p + segmentLength <= limit; p++) {
+                if (literalHead && fold(text.charAt(p)) != values[first]) {
+                    continue;
+                }
+                if (matchAt(text, p, first, segmentEnd[s])) {
+                    found = p;
+                    break;
+                }
+            }
+            if (found < 0) {
+                return false;
+            }
+            position = found + segmentLength;
+        }
+        return true;
+    }
+
+    private boolean matchAt(CharSequence text, int offset, int unitFrom, int unitTo) {
+        for (int u = unitFrom; u < unitTo; u++) {
+            char c = fold(text.charAt(offset + u - unitFrom));
+            switch (kinds[u]) {
+                case LITERAL:
+                    if (c != values[u]) {
+                        return false;
+                    }
+                    break;
+                case CLASS:
+                    if (!matchClass(values[u], c)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchClass(int index, char c) {
+        char[] pairs = classRanges[index];
+        boolean matched = false;
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] <= c && c <= pairs[i + 1]) {
+                matched = true;
+                break;
+            }
+        }
+        return matched != classNegated[index];
+    }
+
+    private static char fold(char c) {
+        return c < 128 ? ASCII_FOLD[c] : Character.toLowerCase(c);
+    }
+
+    /**
+     * 返回与 [ 对应的 ] 的位置，没有则返回-1（此时 [ 按普通字符处理）
+     */
+    private static int findClassEnd(String glob, int open) {
+        int j = open + 1;
+        if (j < glob.length() && (glob.charAt(j) == '!' || glob.charAt(j) == '^')) {
+            j++;
+        }
+        // 紧跟在 [ 后的 ] 视为普通字符
+        if (j < glob.length() && glob.charAt(j) == ']') {
+            j++;
+        }
+        return glob.indexOf(']', j);
+    }
+}
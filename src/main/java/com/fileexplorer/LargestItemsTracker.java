@@ -0,0 +1,126 @@
+package com.fileexplorer;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 在一次遍历中维护最大的 K 个文件和 K 个文件夹。
+ * 两个有界小顶堆各保存当前的前 K 名，新项只需与堆顶比较，每个文件的代价为 O(log K)；
+ * 文件夹大小随遍历用栈逐层累加，离开文件夹时得到其总大小，不需要第二次遍历。
+ * 只由遍历线程访问。
+ */
+public class LargestItemsTracker {
+
+    /**
+     * 排行中的一项
+     */
+    public static final class Entry {
+        private final Path path;
+        private final long size;
+
+        Entry(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    private static final Comparator<Entry> BY_SIZE = Comparator.comparingLong(Entry::getSize);
+
+    private final int limit;
+    private final PriorityQueue<Entry> largestFiles;
+    private final PriorityQueue<Entry> largestDirectories;
+
+    // 正在遍历的各层文件夹的累计大小，栈底为遍历根目录
+    private final Deque<long[]> directoryTotals = new ArrayDeque<>();
+    private long totalBytes = 0;
+    private long fileCount = 0;
+
+    public LargestItemsTracker(int limit) {
+        this.limit = Math.max(1, limit);
+        this.largestFiles = new PriorityQueue<>(this.limit + 1, BY_SIZE);
+        this.largestDirectories = new PriorityQueue<>(this.limit + 1, BY_SIZE);
+    }
+
+    /**
+     * 在 preVisitDirectory 中（确定进入该目录后）调用
+     */
+    public void enterDirectory() {
+        directoryTotals.push(new long[1]);
+    }
+
+    /**
+     * 在 visitFile 中调用
+     */
+    public void addFile(Path file, long size) {
+        fileCount++;
+        totalBytes += size;
+        if (!directoryTotals.isEmpty()) {
+            directoryTotals.peek()[0] += size;
+        }
+        offer(largestFiles, file, size);
+    }
+
+    /**
+     * 在 postVisitDirectory 中调用；文件夹总大小计入上一层，遍历根目录本身不参与排行
+     */
+    public void exitDirectory(Path dir) {
+        if (directoryTotals.isEmpty()) {
+            return;
+        }
+        long total = directoryTotals.pop()[0];
+        if (!directoryTotals.isEmpty()) {
+            directoryTotals.peek()[0] += total;
+            offer(largestDirectories, dir, total);
+        }
+    }
+
+    /**
+     * 当前最大的文件，从大到小
+     */
+    public List<Entry> getLargestFiles() {
+        return sortedDescending(largestFiles);
+    }
+
+    /**
+     * 已遍历完的文件夹中最大的，从大到小
+     */
+    public List<Entry> getLargestDirectories() {
+        return sortedDescending(largestDirectories);
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    private void offer(PriorityQueue<Entry> heap, Path path, long size) {
+        if (heap.size() < limit) {
+            heap.add(new Entry(path, size));
+        } else if (size > heap.peek().getSize()) {
+            heap.poll();
+            heap.add(new Entry(path, size));
+        }
+    }
+
+    private static List<Entry> sortedDescending(PriorityQueue<Entry> heap) {
+        List<Entry> entries = new ArrayList<>(heap);
+        entries.sort(BY_SIZE.reversed());
+        return entries;
+    }
+}
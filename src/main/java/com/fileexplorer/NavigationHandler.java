@@ -33,6 +33,15 @@ public class NavigationHandler {
             return;
         }
 
+        // 智能文件夹不是真实目录，只显示其结果，不进入历史记录
+        if (SmartFolderManager.isSmartFolderPath(newPath)) {
+            SmartFolder folder = SmartFolderManager.getInstance().find(newPath);
+            if (folder != null) {
+                controller.getSearchHandler().showSmartFolder(folder);
+            }
+            return;
+        }
+
         try {
             if (!Files.exists(newPath)) {
                 UIUtils.showAlert("错误", "路径不存在: " + newPath);
@@ -0,0 +1,133 @@
+package com.fileexplorer;
+
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 搜索协调器：输入防抖、取消被取代的搜索、丢弃过期结果并限制同时运行的搜索数。
+ * 除防抖计时外，所有状态只在 JavaFX 线程中访问。
+ */
+public class SearchCoordinator {
+    private static final long DEBOUNCE_MS = 500;
+
+    // 已取消但工作线程尚未退出的搜索也计入，避免取消后的遍历堆积在后台线程池里
+    private static final int MAX_CONCURRENT_SEARCHES = 2;
+
+    private final ThreadPoolManager threadPool = ThreadPoolManager.getInstance();
+
+    private ScheduledFuture<?> pendingDebounce;
+    private long keystrokeGeneration = 0;
+
+    // 每次启动搜索递增，结果回调时比对，过期结果直接丢弃
+    private long searchGeneration = 0;
+    private SearchTask currentSearch;
+    private int runningWorkers = 0;
+
+    // 达到并发上限时等待启动的搜索，只保留最新一个
+    private Runnable queuedStart;
+    private SearchTask queuedSearch;
+
+    /**
+     * 输入变化后延迟执行，期间的新输入会取代旧的
+     */
+    public void debounce(Runnable action) {
+        cancelDebounce();
+        long generation = ++keystrokeGeneration;
+        pendingDebounce = threadPool.getScheduledExecutor().schedule(() -> Platform.runLater(() -> {
+            // 计时器已触发但在排队期间又有新输入时，旧的请求作废
+            if (generation == keystrokeGeneration) {
+                action.run();
+            }
+        }), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取消尚未触发的防抖请求（例如按下回车立即搜索时）
+     */
+    public void cancelDebounce() {
+        keystrokeGeneration++;
+        if (pendingDebounce != null) {
+            pendingDebounce.cancel(false);
+            pendingDebounce = null;
+        }
+    }
+
+    /**
+     * 启动新搜索并取消之前的搜索；只有最新一次搜索的结果会回调
+     */
+    public void start(SearchTask task, Consumer<List<FileItem>> onResults, Consumer<Throwable> onError) {
+        long generation = ++searchGeneration;
+        cancelCurrent();
+
+        task.setOnSucceeded(e -> {
+            if (generation == searchGeneration) {
+                currentSearch = null;
+                onResults.accept(task.getValue());
+            }
+        });
+        task.setOnFailed(e -> {
+            if (generation == searchGeneration) {
+                currentSearch = null;
+                onError.accept(task.getException());
+            }
+        });
+        currentSearch = task;
+
+        Runnable launch = () -> {
+            runningWorkers++;
+            threadPool.submitBackgroundTask(() -> {
+                try {
+                    task.run();
+                } finally {
+                    Platform.runLater(this::onWorkerExit);
+                }
+            });
+        };
+
+        if (runningWorkers < MAX_CONCURRENT_SEARCHES) {
+            launch.run();
+        } else {
+            queuedSearch = task;
+            queuedStart = launch;
+        }
+    }
+
+    /**
+     * 取消当前搜索（包括排队中尚未启动的），并中断其工作线程
+     */
+    public void cancelCurrent() {
+        if (currentSearch != null) {
+            currentSearch.cancel(true);
+            currentSearch = null;
+        }
+        if (queuedSearch != null) {
+            queuedSearch.cancel(true);
+            queuedSearch = null;
+            queuedStart = null;
+        }
+    }
+
+    /**
+     * 当前仍在运行的搜索（已取消或已结束时返回null）
+     */
+    public SearchTask getCurrentSearch() {
+        if (currentSearch != null && currentSearch != queuedSearch && !currentSearch.isDone()) {
+            return currentSearch;
+        }
+        return null;
+    }
+
+    private void onWorkerExit() {
+        runningWorkers--;
+        if (queuedStart != null && runningWorkers < MAX_CONCURRENT_SEARCHES) {
+            Runnable launch = queuedStart;
+            queuedStart = null;
+            queuedSearch = null;
+            launch.run();
+        }
+    }
+}
@@ -1,26 +1,31 @@
 package com.fileexplorer;
 
-import javafx.application.Platform;
 import javafx.scene.control.Button;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToolBar;
 import javafx.scene.control.Tooltip;
+import javafx.scene.control.TreeItem;
 
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 /**
  * 搜索处理类，管理搜索事件和任务。
  */
 public class SearchHandler {
     private final Controller controller;
-    private Timer searchTimer;
+    private final SearchCoordinator coordinator = new SearchCoordinator();
+
+    // 最近一次完整结束的搜索（用于细化）
+    private SearchTask lastCompletedSearch;
 
     public SearchHandler(Controller controller) {
         this.controller = controller;
@@ -29,25 +34,28 @@ public class SearchHandler {
     public void bindSearchEvents() {
         TextField searchField = controller.getSearchField();
 
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            if (searchTimer != null) {
-                searchTimer.cancel();
-            }
-            searchTimer = new Timer();
-            searchTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    Platform.runLater(() -> handleSearch(newValue));
-                }
-            }, 500);
+        searchField.textProperty().addListener((observable, oldValue, newValue) ->
+                coordinator.debounce(() -> handleSearch(newValue)));
+
+        searchField.setOnAction(e -> {
+            coordinator.cancelDebounce();
+            handleSearch(searchField.getText());
         });
 
-        searchField.setOnAction(e -> handleSearch(searchField.getText()));
+        // 正在显示的智能文件夹在后台刷新后更新表格
+        SmartFolderManager.getInstance().setUpdateListener(folder -> {
+            TreeItem<Path> selected = controller.getTreeView().getSelectionModel().getSelectedItem();
+            if (selected != null && folder.getTreePath().equals(selected.getValue())) {
+                showSmartFolder(folder);
+            }
+        });
 
         Button clearSearchButton = new Button("×");
         clearSearchButton.setTooltip(new Tooltip("清除搜索"));
         clearSearchButton.setOnAction(e -> {
             searchField.clear();
+            coordinator.cancelDebounce();
+            coordinator.cancelCurrent();
             controller.refresh();
         });
 
@@ -62,12 +70,66 @@ public class SearchHandler {
 
     private void handleSearch(String pattern) {
         if (pattern.trim().isEmpty()) {
+            coordinator.cancelCurrent();
             controller.refresh();
             return;
         }
 
         String mode = controller.getSearchModeComboBox().getValue();
+        List<Path> searchRoots = currentSearchRoots();
+
+        // 新关键字是运行中搜索的细化时，让它换用新关键字继续遍历
+        SearchTask runningSearch = coordinator.getCurrentSearch();
+        if (runningSearch != null && runningSearch.narrowTo(searchRoots, mode, pattern)) {
+            controller.getStatusLabel().setText("正在细化搜索: " + pattern);
+            return;
+        }
+
+        // 新关键字是上一次完整结果的细化时，只在内存中的结果里过滤
+        List<FileItem> refineFrom = null;
+        if (lastCompletedSearch != null && !lastCompletedSearch.isTruncated()
+                && lastCompletedSearch.getMode().equals(mode)
+                && lastCompletedSearch.getSearchRoots().equals(searchRoots)
+                && SearchTask.isRefinement(mode, lastCompletedSearch.getPattern(), pattern)) {
+            refineFrom = lastCompletedSearch.getValue();
+        }
+
+        SearchTask searchTask = new SearchTask(searchRoots, pattern, mode, refineFrom);
 
+        // 相同的搜索做过时先显示缓存结果，后台只重新检查变化过的目录
+        if (refineFrom == null) {
+            SearchResultCache.Entry cached = SearchResultCache.getInstance()
+                    .get(SearchResultCache.keyFor(searchRoots, pattern, mode));
+            if (cached != null) {
+                showResults(cached.getResults());
+                controller.getStatusLabel().setText("显示缓存的 " + cached.getResults().size() + " 个结果，正在后台验证...");
+                searchTask.revalidate(cached);
+            }
+        }
+        // 排行类搜索在遍历过程中发布中间结果，只显示当前搜索的
+        searchTask.valueProperty().addListener((observable, oldValue, partial) -> {
+            if (partial != null && coordinator.getCurrentSearch() == searchTask) {
+                showResults(partial);
+            }
+        });
+        // 新搜索会取消之前的搜索，过期的结果不会覆盖表格
+        coordinator.start(searchTask, results -> {
+            lastCompletedSearch = searchTask;
+            showResults(results);
+        }, exception -> {
+            // 查询语法错误只提示在状态栏，避免输入过程中反复弹窗
+            if (exception instanceof IllegalArgumentException) {
+                controller.getStatusLabel().setText("查询语法错误: " + exception.getMessage());
+            } else {
+                UIUtils.showAlert("错误", "搜索失败: " + exception.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 搜索范围：当前目录，在"此电脑"中时为所有可读的根目录
+     */
+    private List<Path> currentSearchRoots() {
         List<Path> searchRoots = new ArrayList<>();
         if (controller.getCurrentPath() != null) {
             searchRoots.add(controller.getCurrentPath());
@@ -79,17 +141,61 @@ public class SearchHandler {
                 }
             }
         }
+        return searchRoots;
+    }
 
-        SearchTask searchTask = new SearchTask(searchRoots, pattern, mode);
-        searchTask.setOnSucceeded(e -> Platform.runLater(() -> {
-            controller.getTableView().getItems().setAll(searchTask.getValue());
-            if (controller.getGridView().isVisible()) {
-                updateGridViewWithSearchResults(searchTask.getValue());
-            }
-        }));
-        searchTask.setOnFailed(e -> UIUtils.showAlert("错误", "搜索失败: " + searchTask.getException().getMessage()));
+    /**
+     * 把搜索框中的关键字、当前模式和搜索范围保存为智能文件夹
+     */
+    public void saveCurrentSearchAsSmartFolder() {
+        String pattern = controller.getSearchField().getText();
+        if (pattern == null || pattern.trim().isEmpty()) {
+            UIUtils.showAlert("提示", "请先在搜索框中输入关键字");
+            return;
+        }
+        String mode = controller.getSearchModeComboBox().getValue();
+        UIUtils.showTextInputDialog("保存智能文件夹", mode + ": " + pattern, "请输入智能文件夹名称:", pattern.trim())
+                .ifPresent(name -> {
+                    if (name.trim().isEmpty()) {
+                        return;
+                    }
+                    if (!SmartFolder.isValidName(name.trim())) {
+                        UIUtils.showAlert("错误", "智能文件夹名称不能包含控制字符");
+                        return;
+                    }
+                    SmartFolder folder = new SmartFolder(name.trim(), currentSearchRoots(), mode, pattern);
+                    if (!SmartFolderManager.getInstance().add(folder)) {
+                        UIUtils.showAlert("错误", "智能文件夹已存在: " + name.trim());
+                        return;
+                    }
+                    controller.treeViewHandler.loadSmartFolders();
+                });
+    }
 
-        controller.getThreadPool().submitBackgroundTask(searchTask);
+    /**
+     * 显示智能文件夹已有的结果，不重新搜索
+     */
+    public void showSmartFolder(SmartFolder folder) {
+        coordinator.cancelDebounce();
+        coordinator.cancelCurrent();
+        showResults(folder.getResults());
+
+        if (folder.getLastRefreshMillis() == 0) {
+            controller.getStatusLabel().setText("智能文件夹: " + folder.getName() + " - 正在首次搜索...");
+            SmartFolderManager.getInstance().refreshLater(folder);
+            return;
+        }
+        LocalTime refreshed = LocalTime.ofInstant(Instant.ofEpochMilli(folder.getLastRefreshMillis()), ZoneId.systemDefault());
+        controller.getStatusLabel().setText("智能文件夹: " + folder.getName() + " - " + folder.getResults().size()
+                + " 个项目 (" + (folder.isIncremental() ? "增量更新于 " : "更新于 ")
+                + refreshed.format(DateTimeFormatter.ofPattern("HH:mm:ss")) + ")");
+    }
+
+    private void showResults(List<FileItem> results) {
+        controller.getTableView().getItems().setAll(results);
+        if (controller.getGridView().isVisible()) {
+            updateGridViewWithSearchResults(results);
+        }
     }
 
     private void updateGridViewWithSearchResults(List<FileItem> searchResults) {
@@ -0,0 +1,755 @@
+package com.fileexplorer;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 组合搜索查询。语法示例：
+ * <pre>
+ *   *.log size:&gt;100MB modified:&lt;7d path:/var
+ *   ext:java,xml content:TODO -path:*test*
+ *   (type:image OR type:video) size:&gt;=10M
+ *   TODO exclude:build exclude:*.min.js
+ * </pre>
+ * 空格分隔的条件默认为“与”，支持 OR、前缀 - 或 NOT 取反、括号和双引号。
+ * 解析后的语法树按代价排序：先比较属性（大小、时间、类型），再匹配名称，最后才扫描内容，
+ * 因此遍历过程只做查询真正需要的I/O。
+ */
+public final class SearchQuery {
+    // 三值逻辑：内容条件在遍历线程中暂不求值时结果为 UNKNOWN
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+    public static final int UNKNOWN = -1;
+
+    // 条件代价，决定“与/或”中子条件的求值顺序
+    private static final int COST_ATTRIBUTE = 0;
+    private static final int COST_NAME = 1;
+    private static final int COST_CONTENT = 10;
+
+    /**
+     * 求值时的文件信息，遍历线程内可复用同一个实例
+     */
+    public static final class Candidate {
+        Path path;
+        String fullPath;
+        int nameStart;
+        BasicFileAttributes attrs;
+
+        public Candidate set(Path path, BasicFileAttributes attrs) {
+            this.path = path;
+            this.fullPath = path.toString();
+            this.nameStart = fullPath.lastIndexOf(File.separatorChar) + 1;
+            this.attrs = attrs;
+            return this;
+        }
+    }
+
+    private abstract static class Node {
+        abstract int cost();
+
+        abstract int evaluate(Candidate candidate, boolean allowContent);
+    }
+
+    private final Node root;
+    private final List<Path> rootRestrictions = new ArrayList<>();
+    private final List<String> exclusions = new ArrayList<>();
+    private boolean needsContent = false;
+    private boolean matchesDirectories = false;
+
+    private SearchQuery(String text) {
+        Parser parser = new Parser(text);
+        Node parsed = parser.parseOr();
+        if (!parser.atEnd()) {
+            throw new IllegalArgumentException("无法解析: " + parser.remaining());
+        }
+        this.root = parsed;
+
+        // 顶层“与”中的绝对路径条件可以直接作为遍历起点
+        List<Node> topLevel = parsed instanceof AndNode ? ((AndNode) parsed).children : List.of(parsed);
+        for (Node node : topLevel) {
+            if (node instanceof PathNode && ((PathNode) node).under != null) {
+                rootRestrictions.add(((PathNode) node).under);
+            }
+            // 顶层排除项交给遍历策略，匹配的目录整棵跳过
+            if (node instanceof ExcludeNode) {
+                exclusions.add(((ExcludeNode) node).glob);
+            }
+        }
+    }
+
+    /**
+     * 解析查询文本，语法错误时抛出 IllegalArgumentException
+     */
+    public static SearchQuery parse(String text) {
+        return new SearchQuery(text);
+    }
+
+    /**
+     * 三值求值；allowContent 为 false 时内容条件返回 UNKNOWN
+     */
+    public int evaluate(Candidate candidate, boolean allowContent) {
+        return root.evaluate(candidate, allowContent);
+    }
+
+    /**
+     * 查询中是否包含内容条件
+     */
+    public boolean needsContent() {
+        return needsContent;
+    }
+
+    /**
+     * 查询是否显式要求匹配文件夹（type:dir）
+     */
+    public boolean matchesDirectories() {
+        return matchesDirectories;
+    }
+
+    /**
+     * 顶层 path: 条件给出的绝对路径，可替代默认的搜索根目录
+     */
+    public List<Path> getRootRestrictions() {
+        return rootRestrictions;
+    }
+
+    /**
+     * 顶层 exclude: 条件的通配符，可在遍历时剪掉整个子树
+     */
+    public List<String> getExclusions() {
+        return exclusions;
+    }
+
+    // ---------------- 语法树节点 ----------------
+
+    private static final class AndNode extends Node {
+        final List<Node> children;
+        final int cost;
+
+        AndNode(List<Node> children) {
+            children.sort(Comparator.comparingInt(Node::cost));
+            this.children = children;
+            this.cost = children.stream().mapToInt(Node::cost).max().orElse(COST_ATTRIBUTE);
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            int result = TRUE;
+            for (Node child : children) {
+                int value = child.evaluate(candidate, allowContent);
+                if (value == FALSE) {
+                    return FALSE;
+                }
+                if (value == UNKNOWN) {
+                    result = UNKNOWN;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class OrNode extends Node {
+        final List<Node> children;
+        final int cost;
+
+        OrNode(List<Node> children) {
+            children.sort(Comparator.comparingInt(Node::cost));
+            this.children = children;
+            this.cost = children.stream().mapToInt(Node::cost).max().orElse(COST_ATTRIBUTE);
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            int result = FALSE;
+            for (Node child : children) {
+                int value = child.evaluate(candidate, allowContent);
+                if (value == TRUE) {
+                    return TRUE;
+                }
+                if (value == UNKNOWN) {
+                    result = UNKNOWN;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class NotNode extends Node {
+        final Node child;
+
+        NotNode(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        int cost() {
+            return child.cost();
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            int value = child.evaluate(candidate, allowContent);
+            return value == UNKNOWN ? UNKNOWN : (value == TRUE ? FALSE : TRUE);
+        }
+    }
+
+    /**
+     * 大小比较：size:&gt;100MB、size:&lt;=1k、size:10M..1G
+     */
+    private static final class SizeNode extends Node {
+        final long min;
+        final long max;
+
+        SizeNode(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        int cost() {
+            return COST_ATTRIBUTE;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            if (candidate.attrs.isDirectory()) {
+                return FALSE;
+            }
+            long size = candidate.attrs.size();
+            return size >= min && size <= max ? TRUE : FALSE;
+        }
+    }
+
+    /**
+     * 修改时间：modified:&lt;7d（7天内）、modified:&gt;30d（30天前）、modified:&gt;=2024-01-01
+     */
+    private static final class ModifiedNode extends Node {
+        final long fromMillis;
+        final long toMillis;
+
+        ModifiedNode(long fromMillis, long toMillis) {
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+        }
+
+        @Override
+        int cost() {
+            return COST_ATTRIBUTE;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            long modified = candidate.attrs.lastModifiedTime().toMillis();
+            return modified >= fromMillis && modified <= toMillis ? TRUE : FALSE;
+        }
+    }
+
+    /**
+     * 类型：type:file、type:dir 只看属性；type:image 等按扩展名分类
+     */
+    private static final class TypeNode extends Node {
+        final String type;
+
+        TypeNode(String type) {
+            this.type = type;
+        }
+
+        @Override
+        int cost() {
+            return type.equals("file") || type.equals("dir") ? COST_ATTRIBUTE : COST_NAME;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            boolean directory = candidate.attrs.isDirectory();
+            switch (type) {
+                case "file":
+                    return candidate.attrs.isRegularFile() ? TRUE : FALSE;
+                case "dir":
+                    return directory ? TRUE : FALSE;
+                default:
+                    break;
+            }
+            if (directory) {
+                return FALSE;
+            }
+            Path path = candidate.path;
+            boolean matches;
+            switch (type) {
+                case "image":
+                    matches = SearchTask.isImageFile(path);
+                    break;
+                case "audio":
+                    matches = SearchTask.isAudioFile(path);
+                    break;
+                case "video":
+                    matches = SearchTask.isVideoFile(path);
+                    break;
+                case "document":
+                    matches = SearchTask.isDocumentFile(path);
+                    break;
+                case "archive":
+                    matches = SearchTask.isArchiveFile(path);
+                    break;
+                default:
+                    matches = SearchTask.isTextFile(path);
+                    break;
+            }
+            return matches ? TRUE : FALSE;
+        }
+    }
+
+    /**
+     * 文件名通配符或子串（不区分大小写）
+     */
+    private static final class NameNode extends Node {
+        final GlobMatcher matcher;
+
+        NameNode(GlobMatcher matcher) {
+            this.matcher = matcher;
+        }
+
+        @Override
+        int cost() {
+            return COST_NAME;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            return matcher.matches(candidate.fullPath, candidate.nameStart, candidate.fullPath.length()) ? TRUE : FALSE;
+        }
+    }
+
+    /**
+     * 扩展名：ext:log 或 ext:java,xml
+     */
+    private static final class ExtNode extends Node {
+        final GlobMatcher[] suffixes;
+
+        ExtNode(String[] extensions) {
+            suffixes = new GlobMatcher[extensions.length];
+            for (int i = 0; i < extensions.length; i++) {
+                String extension = extensions[i].startsWith(".") ? extensions[i] : "." + extensions[i];
+                suffixes[i] = GlobMatcher.compile("*" + extension);
+            }
+        }
+
+        @Override
+        int cost() {
+            return COST_NAME;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            for (GlobMatcher suffix : suffixes) {
+                if (suffix.matches(candidate.fullPath, candidate.nameStart, candidate.fullPath.length())) {
+                    return TRUE;
+                }
+            }
+            return FALSE;
+        }
+    }
+
+    /**
+     * 路径：绝对路径表示“位于该目录下”，否则按通配符或子串匹配完整路径
+     */
+    private static final class PathNode extends Node {
+        final Path under;
+        final GlobMatcher matcher;
+
+        PathNode(String value) {
+            Path asPath = null;
+            try {
+                Path candidate = Paths.get(value);
+                if (candidate.isAbsolute()) {
+                    asPath = candidate.normalize();
+                }
+            } catch (RuntimeException e) {
+                // 不是合法路径，按通配符处理
+            }
+            this.under = asPath;
+            this.matcher = asPath != null ? null : wildcardOrContaining(value);
+        }
+
+        @Override
+        int cost() {
+            return COST_NAME;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            if (under != null) {
+                return candidate.path.startsWith(under) ? TRUE : FALSE;
+            }
+            return matcher.matches(candidate.fullPath) ? TRUE : FALSE;
+        }
+    }
+
+    /**
+     * 排除：exclude:build 或 exclude:*.min.js，与名称或完整路径匹配的项不出现在结果中
+     */
+    private static final class ExcludeNode extends Node {
+        final String glob;
+        final GlobMatcher matcher;
+
+        ExcludeNode(String glob) {
+            this.glob = glob;
+            this.matcher = GlobMatcher.compile(glob);
+        }
+
+        @Override
+        int cost() {
+            return COST_NAME;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            boolean excluded = matcher.matches(candidate.fullPath, candidate.nameStart, candidate.fullPath.length())
+                    || matcher.matches(candidate.fullPath);
+            return excluded ? FALSE : TRUE;
+        }
+    }
+
+    /**
+     * 内容：content:TODO，只扫描按内容判断为文本的文件
+     */
+    private static final class ContentNode extends Node {
+        final ContentMatcher matcher;
+
+        ContentNode(String value) {
+            this.matcher = ContentMatcher.compile(value, GlobMatcher.compile("*" + value + "*"));
+        }
+
+        @Override
+        int cost() {
+            return COST_CONTENT;
+        }
+
+        @Override
+        int evaluate(Candidate candidate, boolean allowContent) {
+            if (!candidate.attrs.isRegularFile()
+                    || TextFileDetector.isKnownBinaryName(candidate.path.getFileName().toString())) {
+                return FALSE;
+            }
+            if (!allowContent) {
+                return UNKNOWN;
+            }
+            return TextFileDetector.isText(candidate.path, candidate.attrs)
+                    && matcher.matches(candidate.path, SearchTask.MAX_CONTENT_SCAN_BYTES) ? TRUE : FALSE;
+        }
+    }
+
+    private static GlobMatcher wildcardOrContaining(String value) {
+        if (value.indexOf('*') >= 0 || value.indexOf('?') >= 0 || value.indexOf('[') >= 0) {
+            return GlobMatcher.compile(value);
+        }
+        return GlobMatcher.containing(value);
+    }
+
+    // ---------------- 解析器 ----------------
+
+    /**
+     * 递归下降解析：or := and (OR and)*；and := unary+；unary := (-|NOT) unary | '(' or ')' | term
+     */
+    private final class Parser {
+        private final String text;
+        private int position = 0;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            skipSpaces();
+            return position >= text.length();
+        }
+
+        String remaining() {
+            return text.substring(position);
+        }
+
+        Node parseOr() {
+            List<Node> children = new ArrayList<>();
+            children.add(parseAnd());
+            while (consumeKeyword("OR") || consume('|')) {
+                children.add(parseAnd());
+            }
+            return children.size() == 1 ? children.get(0) : new OrNode(children);
+        }
+
+        Node parseAnd() {
+            List<Node> children = new ArrayList<>();
+            while (!atEnd() && peek() != ')' && peek() != '|' && !peekKeyword("OR")) {
+                children.add(parseUnary());
+            }
+            if (children.isEmpty()) {
+                throw new IllegalArgumentException("缺少搜索条件");
+            }
+            return children.size() == 1 ? children.get(0) : new AndNode(children);
+        }
+
+        Node parseUnary() {
+            if (consume('-') || consumeKeyword("NOT")) {
+                return new NotNode(parseUnary());
+            }
+            if (consume('(')) {
+                Node inner = parseOr();
+                if (!consume(')')) {
+                    throw new IllegalArgumentException("缺少右括号");
+                }
+                return inner;
+            }
+            return parseTerm(readWord());
+        }
+
+        Node parseTerm(String word) {
+            int colon = word.indexOf(':');
+            String key = colon > 0 ? word.substring(0, colon).toLowerCase(Locale.ROOT) : "";
+            String value = colon > 0 ? unquote(word.substring(colon + 1)) : unquote(word);
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("条件缺少取值: " + word);
+            }
+
+            switch (key) {
+                case "ext":
+                    return new ExtNode(value.split(","));
+                case "size":
+                    return parseSize(value);
+                case "modified":
+                    return parseModified(value);
+                case "type":
+                    return parseType(value);
+                case "path":
+                    return new PathNode(value);
+                case "exclude":
+                    return new ExcludeNode(value);
+                case "content":
+                    needsContent = true;
+                    return new ContentNode(value);
+                case "name":
+                case "":
+                    return new NameNode(wildcardOrContaining(value));
+                default:
+                    // 未知前缀（例如 Windows 盘符）按普通名称处理
+                    return new NameNode(wildcardOrContaining(unquote(word)));
+            }
+        }
+
+        String readWord() {
+            skipSpaces();
+            StringBuilder word = new StringBuilder();
+            boolean quoted = false;
+            while (position < text.length()) {
+                char c = text.charAt(position);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && (Character.isWhitespace(c) || c == '(' || c == ')' || c == '|')) {
+                    break;
+                }
+                word.append(c);
+                position++;
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("引号未闭合");
+            }
+            return word.toString();
+        }
+
+        private char peek() {
+            skipSpaces();
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean peekKeyword(String keyword) {
+            skipSpaces();
+            int end = position + keyword.length();
+            return text.startsWith(keyword, position)
+                    && (end == text.length() || Character.isWhitespace(text.charAt(end)) || text.charAt(end) == '(');
+        }
+
+        private boolean consumeKeyword(String keyword) {
+            if (peekKeyword(keyword)) {
+                position += keyword.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+    }
+
+    private Node parseSize(String value) {
+        int range = value.indexOf("..");
+        if (range >= 0) {
+            return new SizeNode(parseBytes(value.substring(0, range)), parseBytes(value.substring(range + 2)));
+        }
+        String operator = leadingOperator(value);
+        long bytes = parseBytes(value.substring(operator.length()));
+        switch (operator) {
+            case ">":
+                return new SizeNode(bytes + 1, Long.MAX_VALUE);
+            case ">=":
+                return new SizeNode(bytes, Long.MAX_VALUE);
+            case "<":
+                return new SizeNode(0, bytes - 1);
+            case "<=":
+                return new SizeNode(0, bytes);
+            default:
+                return new SizeNode(bytes, bytes);
+        }
+    }
+
+    private Node parseModified(String value) {
+        String operator = leadingOperator(value);
+        String operand = value.substring(operator.length());
+        long now = System.currentTimeMillis();
+
+        long pivot;
+        boolean isAge;
+        Long age = parseDuration(operand);
+        if (age != null) {
+            pivot = now - age;
+            isAge = true;
+        } else {
+            try {
+                pivot = LocalDate.parse(operand).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("无法识别的时间: " + operand + "（示例: 7d、12h、2024-01-01）");
+            }
+            isAge = false;
+        }
+
+        // 时长表示“距今”，因此 < 表示比该时刻更新；日期则按时间先后比较
+        boolean newer = isAge ? operator.startsWith("<") : operator.startsWith(">");
+        if (operator.isEmpty() || operator.equals("=")) {
+            long dayEnd = isAge ? now : pivot + 24L * 3600 * 1000 - 1;
+            return new ModifiedNode(pivot, dayEnd);
+        }
+        return newer ? new ModifiedNode(pivot, Long.MAX_VALUE) : new ModifiedNode(Long.MIN_VALUE, pivot);
+    }
+
+    private Node parseType(String value) {
+        String type = value.toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "dir":
+            case "folder":
+            case "directory":
+                matchesDirectories = true;
+                return new TypeNode("dir");
+            case "file":
+            case "image":
+            case "audio":
+            case "video":
+            case "document":
+            case "archive":
+            case "text":
+                return new TypeNode(type);
+            default:
+                throw new IllegalArgumentException("未知类型: " + value
+                        + "（可用: file、dir、image、audio、video、document、archive、text）");
+        }
+    }
+
+    private static String leadingOperator(String value) {
+        for (String operator : new String[]{">=", "<=", ">", "<", "="}) {
+            if (value.startsWith(operator)) {
+                return operator;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * 解析 100、10k、1.5MB、2G 等大小写法（按1024进位）
+     */
+    static long parseBytes(String text) {
+        String value = text.trim().toUpperCase(Locale.ROOT);
+        if (value.endsWith("B")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        long multiplier = 1;
+        if (!value.isEmpty()) {
+            switch (value.charAt(value.length() - 1)) {
+                case 'K':
+                    multiplier = 1024L;
+                    break;
+                case 'M':
+                    multiplier = 1024L * 1024;
+                    break;
+                case 'G':
+                    multiplier = 1024L * 1024 * 1024;
+                    break;
+                case 'T':
+                    multiplier = 1024L * 1024 * 1024 * 1024;
+                    break;
+                default:
+                    break;
+            }
+            if (multiplier > 1) {
+                value = value.substring(0, value.length() - 1);
+            }
+        }
+        try {
+            return (long) (Double.parseDouble(value) * multiplier);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无法识别的大小: " + text + "（示例: 100MB、10k、2G）");
+        }
+    }
+
+    /**
+     * 解析 30s、15min、12h、7d、2w、1y 等时长，返回毫秒；不是时长时返回null
+     */
+    private static Long parseDuration(String text) {
+        String value = text.trim().toLowerCase(Locale.ROOT);
+        String[][] units = {{"min", "60000"}, {"s", "1000"}, {"h", "3600000"}, {"d", "86400000"},
+                {"w", "604800000"}, {"y", "31536000000"}};
+        for (String[] unit : units) {
+            if (value.endsWith(unit[0])) {
+                String number = value.substring(0, value.length() - unit[0].length());
+                try {
+                    return (long) (Double.parseDouble(number) * Long.parseLong(unit[1]));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,106 @@
+package com.fileexplorer;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 已完成搜索的结果缓存（最近最少使用淘汰）。
+ * 每项记录遍历过的目录及其修改时间，再次执行相同搜索时先显示缓存结果，
+ * 后台只重新列出修改时间变化过的目录，而不是重新遍历整棵树。
+ * <p>
+ * 目录的修改时间只反映其直接子项的增删和改名，不反映文件内容变化，
+ * 因此只缓存结果仅取决于文件名的搜索模式。
+ */
+public class SearchResultCache {
+    private static SearchResultCache instance;
+
+    private static final int MAX_ENTRIES = 16;
+
+    // 目录太多时记录修改时间的内存开销超过重新遍历的收益
+    static final int MAX_TRACKED_DIRECTORIES = 200_000;
+
+    // 结果只取决于文件名（及目录结构）的模式
+    private static final Set<String> CACHEABLE_MODES = Set.of(
+            "通配符匹配", "字符串匹配", "搜索图片", "搜索音频", "搜索视频", "搜索文档", "搜索压缩文件"
+    );
+
+    /**
+     * 一次完整搜索的结果和遍历过的目录
+     */
+    public static final class Entry {
+        private final List<FileItem> results;
+        private final Map<Path, Long> directoryMtimes;
+
+        Entry(List<FileItem> results, Map<Path, Long> directoryMtimes) {
+            this.results = Collections.unmodifiableList(results);
+            this.directoryMtimes = Collections.unmodifiableMap(directoryMtimes);
+        }
+
+        public List<FileItem> getResults() {
+            return results;
+        }
+
+        public Map<Path, Long> getDirectoryMtimes() {
+            return directoryMtimes;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private SearchResultCache() {
+    }
+
+    public static synchronized SearchResultCache getInstance() {
+        if (instance == null) {
+            instance = new SearchResultCache();
+        }
+        return instance;
+    }
+
+    /**
+     * 缓存键：根目录、模式和规范化后的关键字；不可缓存的模式返回null。
+     * 排除规则由 WalkPolicy 的固定预设决定，已包含在模式中。
+     */
+    public static String keyFor(List<Path> roots, String pattern, String mode) {
+        if (!CACHEABLE_MODES.contains(mode) || pattern == null) {
+            return null;
+        }
+        // 字符串匹配保留原样（包括空格），通配符两端空白无意义，分类搜索与关键字无关
+        String normalized;
+        if (mode.equals("字符串匹配")) {
+            normalized = pattern;
+        } else if (mode.equals("通配符匹配")) {
+            normalized = pattern.trim();
+        } else {
+            normalized = "";
+        }
+        return roots + "\u0000" + mode + "\u0000" + normalized.toLowerCase();
+    }
+
+    public synchronized Entry get(String key) {
+        return key == null ? null : entries.get(key);
+    }
+
+    public synchronized void put(String key, List<FileItem> results, Map<Path, Long> directoryMtimes) {
+        if (key == null || directoryMtimes.size() > MAX_TRACKED_DIRECTORIES) {
+            return;
+        }
+        entries.put(key, new Entry(results, directoryMtimes));
+    }
+
+    /**
+     * 清空缓存（例如批量文件操作之后）
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
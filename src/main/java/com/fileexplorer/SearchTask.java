@@ -2,40 +2,108 @@ package com.fileexplorer;
 
 import javafx.concurrent.Task;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.function.Predicate;
 
 public class SearchTask extends Task<List<FileItem>> {
     private final List<Path> searchRoots;
-    private final String pattern;
+    private volatile String pattern;
     private final String mode;
     private volatile boolean cancelled = false;
     private int resultCount = 0;
     private static final int MAX_RESULTS = 1000;
 
-    // 通配符模式
-    private Pattern compiledPattern;
+    // 内容搜索对单个文件最多扫描的字节数（超大日志只扫描开头部分）
+    static final long MAX_CONTENT_SCAN_BYTES = 512L * 1024 * 1024;
+    static final String LARGEST_ITEMS_MODE = "最大的文件和文件夹";
+    static final String ARCHIVE_ENTRIES_MODE = "搜索压缩包内";
+    static final String FUZZY_MODE = "模糊匹配";
+    // 压缩包内搜索时，以此前缀开头的关键字表示搜索条目内容
+    static final String ARCHIVE_CONTENT_PREFIX = "content:";
+
+    // 文件名匹配器（通配符匹配、字符串匹配）
+    private volatile GlobMatcher nameMatcher;
+
+    // 细化搜索：只在上一次的结果中过滤，不再遍历磁盘
+    private final List<FileItem> refineFrom;
+
+    // 运行中被细化的新关键字，由遍历线程在下一个文件前应用
+    private volatile String pendingPattern;
+    private boolean finished = false;
+
+    // 内容搜索使用的字节级匹配器
+    private ContentMatcher contentMatcher;
+
+    // 压缩包内容搜索的匹配器（只读取中央目录时为null）
+    private ContentMatcher archiveContentMatcher;
+
+    // 内容搜索流水线（遍历、扫描、合并分离）
+    private ContentSearchPipeline contentPipeline;
+
+    // 高级查询（在 call 中解析，语法错误作为任务失败报告）
+    private SearchQuery query;
+    private final SearchQuery.Candidate queryCandidate = new SearchQuery.Candidate();
+
+    // 重复文件查找（遍历时按大小分组，遍历结束后分阶段比较内容）
+    private DuplicateFinder duplicateFinder;
+
+    // 最大文件/文件夹排行（有界小顶堆，文件夹大小在同一次遍历中累加）
+    private LargestItemsTracker largestItems;
+    private static final int DEFAULT_LARGEST_COUNT = 100;
+    private final Map<Path, FileItem> rankingItems = new HashMap<>();
+
+    // 模糊匹配：按得分保留前 K 名，结果按得分而不是遍历顺序排列
+    private FuzzyMatcher fuzzyMatcher;
+    private FuzzyMatcher.Ranking fuzzyRanking;
+    private static final int DEFAULT_FUZZY_COUNT = 200;
+    private long fuzzyScanned = 0;
+
+    // 结果缓存：记录遍历过的目录及其修改时间；命中缓存时只重新列出变化过的目录
+    private boolean trackDirectories = false;
+    private final Map<Path, Long> visitedDirectories = new HashMap<>();
+    private SearchResultCache.Entry cachedEntry;
+    private volatile SearchResultCache.Entry completedEntry;
+
+    // 遍历剪枝：伪文件系统、网络挂载、忽略的目录名和排除项
+    private final WalkPolicy walkPolicy = WalkPolicy.forSearch();
+    private int failedCount = 0;
+    private static final int MAX_REPORTED_FAILURES = 20;
+    private long lastStatsNanos = 0;
+    private static final long STATS_INTERVAL_NANOS = 500_000_000L;
 
     public SearchTask(List<Path> searchRoots, String pattern, String mode) {
+        this(searchRoots, pattern, mode, null);
+    }
+
+    /**
+     * @param refineFrom 非空时只在这些结果中重新匹配（新关键字是上一次关键字的细化）
+     */
+    public SearchTask(List<Path> searchRoots, String pattern, String mode, List<FileItem> refineFrom) {
         this.searchRoots = searchRoots;
         this.pattern = pattern;
         this.mode = mode;
+        this.refineFrom = refineFrom;
 
-        // 如果使用通配符，编译正则表达式模式
-        if (mode.equals("通配符匹配") && pattern != null && !pattern.trim().isEmpty()) {
-            // 认为用户输入的两端都有*，匹配部分字符串
+        // 预先编译文件名匹配器
+        this.nameMatcher = compileNameMatcher(mode, pattern);
+        if (mode.equals("文本文件内容通配符匹配")) {
+            // 对于内容搜索，候选行也按通配符校验
             String wildcard = "*" + pattern.trim() + "*";
-            this.compiledPattern = compileWildcardPattern(wildcard);
-        } else if (mode.equals("文本文件内容通配符匹配")) {
-            // 对于内容搜索，也编译通配符
-            String wildcard = "*" + pattern.trim() + "*";
-            this.compiledPattern = compileWildcardPattern(wildcard);
+            this.contentMatcher = ContentMatcher.compile(pattern.trim(), GlobMatcher.compile(wildcard));
+        } else if (mode.equals(ARCHIVE_ENTRIES_MODE) && pattern != null
+                && pattern.trim().startsWith(ARCHIVE_CONTENT_PREFIX)) {
+            String text = pattern.trim().substring(ARCHIVE_CONTENT_PREFIX.length()).trim();
+            if (!text.isEmpty()) {
+                this.archiveContentMatcher = ContentMatcher.compile(text, GlobMatcher.compile("*" + text + "*"));
+            }
         }
     }
 
@@ -50,136 +118,675 @@ public class SearchTask extends Task<List<FileItem>> {
 
         updateMessage("正在搜索: " + pattern + " (模式: " + mode + ")");
 
-        for (Path startDir : searchRoots) {
-            try {
-                Files.walkFileTree(startDir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE,
-                        new SimpleFileVisitor<Path>() {
-
-                            @Override
-                            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                                // 检查任务是否被取消
-                                if (isCancelled() || cancelled) {
-                                    return FileVisitResult.TERMINATE;
-                                }
-                                return FileVisitResult.CONTINUE;
+        List<Path> roots = searchRoots;
+        Predicate<Path> pipelineMatcher = this::searchFileContent;
+        if (mode.equals("高级查询")) {
+            query = SearchQuery.parse(pattern.trim());
+            // 顶层的绝对路径条件直接作为遍历起点
+            if (!query.getRootRestrictions().isEmpty()) {
+                roots = new ArrayList<>();
+                for (Path restriction : query.getRootRestrictions()) {
+                    if (Files.isDirectory(restriction)) {
+                        roots.add(restriction);
+                    }
+                }
+            }
+            pipelineMatcher = this::evaluateQueryFully;
+            query.getExclusions().forEach(walkPolicy::addExclusion);
+        }
+
+        if (mode.equals(LARGEST_ITEMS_MODE)) {
+            largestItems = new LargestItemsTracker(parseLargestCount(pattern));
+        }
+
+        if (mode.equals(FUZZY_MODE)) {
+            fuzzyMatcher = FuzzyMatcher.compile(pattern);
+            fuzzyRanking = new FuzzyMatcher.Ranking(DEFAULT_FUZZY_COUNT);
+        }
+
+        if (mode.equals("查找重复文件") && !roots.isEmpty()) {
+            duplicateFinder = new DuplicateFinder(FileUtils.recommendedIoParallelism(roots.get(0)));
+        }
+
+        if ((contentMatcher != null || (query != null && query.needsContent())) && !roots.isEmpty()) {
+            // 命中结果由合并线程按遍历顺序追加
+            contentPipeline = new ContentSearchPipeline(pipelineMatcher, path -> {
+                results.add(new FileItem(path));
+                resultCount++;
+                updateMessage("找到: " + path.getFileName() + " (已找到 " + resultCount + " 个结果)");
+            }, () -> isCancelled() || cancelled, MAX_RESULTS, FileUtils.recommendedIoParallelism(roots.get(0)));
+            contentPipeline.start();
+        }
+
+        trackDirectories = refineFrom == null && supportsRevalidation(searchRoots, pattern, mode);
+
+        try {
+            if (refineFrom != null) {
+                refinePreviousResults(results);
+            } else if (cachedEntry != null) {
+                revalidateCachedResults(results);
+            } else {
+                walkRoots(roots, results);
+            }
+            if (contentPipeline != null) {
+                contentPipeline.finish();
+            }
+        } finally {
+            if (contentPipeline != null) {
+                contentPipeline.stop();
+            }
+        }
+
+        if (largestItems != null) {
+            List<FileItem> ranking = buildRanking();
+            updateMessage("遍历 " + largestItems.getFileCount() + " 个文件，共 "
+                    + FileUtils.formatSize(largestItems.getTotalBytes()));
+            return ranking;
+        }
+
+        if (fuzzyRanking != null) {
+            List<FileItem> ranking = buildFuzzyRanking();
+            updateMessage("比较 " + fuzzyScanned + " 个文件名，显示最匹配的 " + ranking.size() + " 个");
+            return ranking;
+        }
+
+        if (duplicateFinder != null && !isCancelled() && !cancelled) {
+            publishDuplicates(results);
+            return results;
+        }
+
+        // 遍历结束后不再接受运行中细化，最后一次细化在此应用
+        synchronized (this) {
+            finished = true;
+            applyPendingPattern(results);
+        }
+
+        // 完整且未截断的结果放入缓存（运行中细化过的搜索以最终关键字为键）
+        if (trackDirectories && !isCancelled() && !cancelled && !isTruncated()) {
+            completedEntry = new SearchResultCache.Entry(new ArrayList<>(results), visitedDirectories);
+            SearchResultCache.getInstance().put(SearchResultCache.keyFor(searchRoots, pattern, mode),
+                    new ArrayList<>(results), visitedDirectories);
+        }
+
+        if (failedCount > MAX_REPORTED_FAILURES) {
+            System.err.println("搜索期间共有 " + failedCount + " 个文件访问失败");
+        }
+
+        if (contentPipeline != null) {
+            updateMessage("搜索完成，找到 " + results.size() + " 个结果 (" + contentPipeline.getThroughputSummary() + ")");
+        } else {
+            updateMessage("搜索完成，找到 " + results.size() + " 个结果");
+        }
+        return results;
+    }
+
+    private void walkRoots(List<Path> roots, List<FileItem> results) throws Exception {
+        for (Path startDir : roots) {
+            // 已建立内容索引的目录，只扫描索引给出的候选文件
+            if (contentMatcher != null && searchIndexedRoot(startDir)) {
+                continue;
+            }
+            walkTree(startDir, results);
+        }
+    }
+
+    private void walkTree(Path startDir, List<FileItem> results) throws Exception {
+        try {
+            Files.walkFileTree(startDir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE,
+                    new SimpleFileVisitor<Path>() {
+
+                        @Override
+                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                            // 检查任务是否被取消
+                            if (isCancelled() || cancelled) {
+                                return FileVisitResult.TERMINATE;
+                            }
+                            // 被排除的目录整棵跳过，不进入
+                            FileVisitResult decision = walkPolicy.checkDirectory(dir, attrs, startDir);
+                            if (decision != FileVisitResult.CONTINUE) {
+                                return decision;
+                            }
+                            if (trackDirectories) {
+                                visitedDirectories.put(dir, attrs.lastModifiedTime().toMillis());
                             }
+                            if (largestItems != null) {
+                                largestItems.enterDirectory();
+                            }
+                            // 查询包含 type:dir 时文件夹本身也参与匹配
+                            if (query != null && query.matchesDirectories() && !dir.equals(startDir)) {
+                                return visitQueryCandidate(dir, attrs, results);
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
 
-                            @Override
-                            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
-                                // 检查任务是否被取消
-                                if (isCancelled() || cancelled) {
-                                    return FileVisitResult.TERMINATE;
-                                }
+                        @Override
+                        public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                            // 检查任务是否被取消
+                            if (isCancelled() || cancelled) {
+                                return FileVisitResult.TERMINATE;
+                            }
 
-                                // 检查结果数量限制
-                                if (resultCount >= MAX_RESULTS) {
-                                    updateMessage("已达到最大结果限制 (" + MAX_RESULTS + " 个结果)，停止搜索");
-                                    return FileVisitResult.TERMINATE;
-                                }
+                            if (pendingPattern != null) {
+                                applyPendingPattern(results);
+                            }
 
-                                // 检查是否是普通文件
-                                if (attrs.isRegularFile()) {
-                                    String fileName = path.getFileName().toString();
-                                    boolean matches = false;
-
-                                    switch (mode) {
-                                        case "通配符匹配":
-                                            // 使用通配符模式匹配文件名
-                                            matches = compiledPattern.matcher(fileName).matches();
-                                            break;
-                                        case "字符串匹配":
-                                            // 简单包含匹配（不区分大小写）
-                                            String searchPattern = pattern.toLowerCase();
-                                            matches = fileName.toLowerCase().contains(searchPattern);
-                                            break;
-                                        case "文本文件内容通配符匹配":
-                                            // 只搜索文本文件内容
-                                            if (isTextFile(path)) {
-                                                matches = searchFileContent(path, compiledPattern);
-                                            }
-                                            break;
-                                        case "搜索图片":
-                                            matches = isImageFile(path);
-                                            break;
-                                        case "搜索音频":
-                                            matches = isAudioFile(path);
-                                            break;
-                                        case "搜索视频":
-                                            matches = isVideoFile(path);
-                                            break;
-                                        case "搜索文档":
-                                            matches = isDocumentFile(path);
-                                            break;
-                                        case "搜索压缩文件":
-                                            matches = isArchiveFile(path);
-                                            break;
-                                        case "检索大文件(100MB+,可能需要等待)":
-                                            // 定义大文件为 > 100MB
-                                            matches = attrs.size() > 100 * 1024 * 1024;
-                                            break;
-                                        default:
-                                            break;
-                                    }
-
-                                    if (matches) {
-                                        results.add(new FileItem(path));
-                                        resultCount++;
-                                        updateMessage("找到: " + path.getFileName() + " (已找到 " + resultCount + " 个结果)");
-                                    }
-                                }
+                            // 检查结果数量限制（内容搜索由流水线自行判断）
+                            if (contentPipeline == null && resultCount >= MAX_RESULTS) {
+                                updateMessage("已达到最大结果限制 (" + MAX_RESULTS + " 个结果)，停止搜索");
+                                return FileVisitResult.TERMINATE;
+                            }
 
-                                return FileVisitResult.CONTINUE;
+                            if (query != null) {
+                                return visitQueryCandidate(path, attrs, results);
                             }
 
-                            @Override
-                            public FileVisitResult visitFileFailed(Path path, IOException exc) throws IOException {
-                                // 忽略访问被拒绝的异常，继续搜索其他文件
-                                if (exc instanceof AccessDeniedException) {
-                                    return FileVisitResult.CONTINUE;
+                            // 检查是否是普通文件
+                            if (attrs.isRegularFile()) {
+                                boolean matches = false;
+
+                                switch (mode) {
+                                    case "文本文件内容通配符匹配":
+                                        // 交给流水线的扫描线程处理，由扫描线程按内容判断是否为文本
+                                        if (!TextFileDetector.isKnownBinaryName(path.getFileName().toString())) {
+                                            return submitContentCandidate(path, attrs.size());
+                                        }
+                                        break;
+                                    case "查找重复文件":
+                                        // 关键字作为文件名过滤，只登记，不立即产生结果
+                                        if (matchesName(path)) {
+                                            duplicateFinder.add(path, attrs);
+                                        }
+                                        break;
+                                    case ARCHIVE_ENTRIES_MODE:
+                                        if (ArchiveIndex.isZipArchive(path)) {
+                                            searchArchive(path, attrs, results);
+                                        }
+                                        break;
+                                    case FUZZY_MODE:
+                                        scoreFuzzy(path);
+                                        break;
+                                    case LARGEST_ITEMS_MODE:
+                                        // 只维护排行，定期发布当前的前 K 名
+                                        largestItems.addFile(path, attrs.size());
+                                        publishRankingPeriodically();
+                                        break;
+                                    default:
+                                        matches = matchesByName(path);
+                                        break;
                                 }
 
-                                // 对于其他异常，可以选择记录日志或继续
-                                System.err.println("访问文件失败: " + path + ", 原因: " + exc.getMessage());
+                                if (matches) {
+                                    addResult(results, new FileItem(path));
+                                }
+                            }
 
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path path, IOException exc) throws IOException {
+                            // 忽略访问被拒绝的异常，继续搜索其他文件
+                            if (exc instanceof AccessDeniedException) {
                                 return FileVisitResult.CONTINUE;
                             }
 
-                            @Override
-                            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                                // 处理目录访问后的异常
-                                if (exc != null && exc instanceof AccessDeniedException) {
-                                    return FileVisitResult.CONTINUE;
-                                }
+                            // 对于其他异常只记录前若干条，避免刷屏
+                            if (++failedCount <= MAX_REPORTED_FAILURES) {
+                                System.err.println("访问文件失败: " + path + ", 原因: " + exc.getMessage());
+                            }
 
-                                if (exc != null) {
-                                    System.err.println("访问目录后异常: " + dir + ", 原因: " + exc.getMessage());
-                                }
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                            if (largestItems != null) {
+                                largestItems.exitDirectory(dir);
+                            }
 
+                            // 处理目录访问后的异常
+                            if (exc != null && exc instanceof AccessDeniedException) {
                                 return FileVisitResult.CONTINUE;
                             }
-                        });
-
-            } catch (Exception e) {
-                // 如果任务没有被取消，抛出异常
-                if (!isCancelled() && !cancelled) {
-                    // 检查是否是访问被拒绝的异常
-                    Throwable cause = e;
-                    while (cause != null) {
-                        if (cause instanceof AccessDeniedException) {
-                            // 忽略访问被拒绝的异常，只是记录
-                            System.err.println("访问被拒绝: " + cause.getMessage());
-                            continue; // 继续下一个盘符
+
+                            if (exc != null) {
+                                System.err.println("访问目录后异常: " + dir + ", 原因: " + exc.getMessage());
+                            }
+
+                            return FileVisitResult.CONTINUE;
                         }
-                        cause = cause.getCause();
+                    });
+
+        } catch (Exception e) {
+            // 如果任务没有被取消，抛出异常
+            if (!isCancelled() && !cancelled) {
+                // 检查是否是访问被拒绝的异常
+                Throwable cause = e;
+                while (cause != null) {
+                    if (cause instanceof AccessDeniedException) {
+                        // 忽略访问被拒绝的异常，只是记录
+                        System.err.println("访问被拒绝: " + cause.getMessage());
+                        return; // 继续下一个盘符
                     }
-                    // 对于其他异常，重新抛出
-                    throw e;
+                    cause = cause.getCause();
                 }
+                // 对于其他异常，重新抛出
+                throw e;
             }
         }
+    }
 
-        updateMessage("搜索完成，找到 " + results.size() + " 个结果");
-        return results;
+    /**
+     * 结果能否按目录修改时间增量维护：只取决于文件名的模式，以及不读取内容、不匹配文件夹的高级查询。
+     * 目录修改时间不反映文件大小等属性的变化，高级查询复用目录结果时对已有结果重新求值，
+     * 未命中的文件属性变化只有完整搜索才能发现
+     */
+    static boolean supportsRevalidation(List<Path> roots, String pattern, String mode) {
+        if (SearchResultCache.keyFor(roots, pattern, mode) != null) {
+            return true;
+        }
+        if (!mode.equals("高级查询") || pattern == null || pattern.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            SearchQuery parsed = SearchQuery.parse(pattern.trim());
+            return !parsed.needsContent() && !parsed.matchesDirectories();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 使用缓存结果代替完整遍历：修改时间未变的目录直接沿用其中的结果，
+     * 变化过的目录重新列出直接子项，新出现的子目录完整遍历，已消失的目录连同结果一起丢弃。
+     */
+    public void revalidate(SearchResultCache.Entry entry) {
+        this.cachedEntry = entry;
+    }
+
+    /**
+     * 完整结束时的结果和遍历过的目录，可用于下一次增量验证；不可缓存的模式或结果被截断时为null
+     */
+    public SearchResultCache.Entry getCompletedEntry() {
+        return completedEntry;
+    }
+
+    private void revalidateCachedResults(List<FileItem> results) throws Exception {
+        Map<Path, List<FileItem>> resultsByDirectory = new HashMap<>();
+        for (FileItem item : cachedEntry.getResults()) {
+            resultsByDirectory.computeIfAbsent(item.getPath().getParent(), dir -> new ArrayList<>()).add(item);
+        }
+        Map<Path, Long> cachedDirectories = cachedEntry.getDirectoryMtimes();
+
+        // 让遍历策略记住根目录所在的文件系统
+        for (Path root : searchRoots) {
+            try {
+                walkPolicy.checkDirectory(root, Files.readAttributes(root, BasicFileAttributes.class), root);
+            } catch (IOException e) {
+                // 根目录不可访问，下面按已删除处理
+            }
+        }
+
+        int changed = 0;
+        for (Map.Entry<Path, Long> cached : cachedDirectories.entrySet()) {
+            if (isCancelled() || cancelled || resultCount >= MAX_RESULTS) {
+                break;
+            }
+            Path dir = cached.getKey();
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                changed++;
+                continue;
+            }
+            if (!attrs.isDirectory()) {
+                changed++;
+                continue;
+            }
+
+            long mtime = attrs.lastModifiedTime().toMillis();
+            visitedDirectories.put(dir, mtime);
+            if (mtime == cached.getValue()) {
+                for (FileItem item : resultsByDirectory.getOrDefault(dir, List.of())) {
+                    if (query != null) {
+                        revisitQueryResult(item.getPath(), results);
+                    } else {
+                        addResult(results, item);
+                    }
+                }
+            } else {
+                changed++;
+                rescanDirectory(dir, cachedDirectories, results);
+            }
+        }
+        updateMessage("已验证 " + cachedDirectories.size() + " 个目录，其中 " + changed + " 个有变化");
+    }
+
+    // 重新列出一个目录的直接子项
+    private void rescanDirectory(Path dir, Map<Path, Long> cachedDirectories, List<FileItem> results) throws Exception {
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+            for (Path child : children) {
+                if (isCancelled() || cancelled || resultCount >= MAX_RESULTS) {
+                    return;
+                }
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (attrs.isDirectory()) {
+                    // 新出现（或改名后）的子目录：按遍历策略决定是否完整遍历
+                    if (!cachedDirectories.containsKey(child)
+                            && walkPolicy.checkDirectory(child, attrs, dir) == FileVisitResult.CONTINUE) {
+                        walkTree(child, results);
+                    }
+                } else if (query != null) {
+                    visitQueryCandidate(child, attrs, results);
+                } else if (attrs.isRegularFile() && matchesByName(child)) {
+                    addResult(results, new FileItem(child));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("重新列出目录失败: " + dir + ", 原因: " + e.getMessage());
+        }
+    }
+
+    // 目录未变化时重新读取上一次命中文件的属性并求值（大小、修改时间等条件可能不再满足）
+    private void revisitQueryResult(Path path, List<FileItem> results) {
+        try {
+            visitQueryCandidate(path, Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS),
+                    results);
+        } catch (IOException e) {
+            // 文件已删除
+        }
+    }
+
+    private void addResult(List<FileItem> results, FileItem item) {
+        results.add(item);
+        resultCount++;
+        updateMessage("找到: " + item.getName() + " (已找到 " + resultCount + " 个结果)");
+    }
+
+    /**
+     * 在单个压缩包中按条目名称（或内容）匹配；压缩包损坏只记录，不影响其他文件
+     */
+    private void searchArchive(Path archive, BasicFileAttributes attrs, List<FileItem> results) {
+        try {
+            List<ArchiveIndex.Entry> matched = new ArrayList<>();
+            for (ArchiveIndex.Entry entry : ArchiveIndex.list(archive, attrs)) {
+                String name = entry.getName();
+                if (archiveContentMatcher != null) {
+                    // 是否为文本由解压出的第一块判断
+                    if (!TextFileDetector.isKnownBinaryName(name.substring(entry.getNameStart()))) {
+                        matched.add(entry);
+                    }
+                } else if (nameMatcher != null && nameMatcher.matches(name, entry.getNameStart(), name.length())) {
+                    matched.add(entry);
+                }
+            }
+            if (archiveContentMatcher != null) {
+                updateMessage("正在搜索压缩包内容: " + archive);
+                matched = ArchiveIndex.scanContent(archive, matched, archiveContentMatcher);
+            }
+            for (ArchiveIndex.Entry entry : matched) {
+                if (resultCount >= MAX_RESULTS) {
+                    break;
+                }
+                addResult(results, new FileItem(archive, entry.getName(), entry.getSize(), entry.getModifiedMillis()));
+            }
+        } catch (IOException e) {
+            if (++failedCount <= MAX_REPORTED_FAILURES) {
+                System.err.println("读取压缩包失败: " + archive + ", 原因: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 只依据文件名判断的模式（通配符、字符串和各分类搜索）
+     */
+    private boolean matchesByName(Path path) {
+        switch (mode) {
+            case "通配符匹配":
+            case "字符串匹配":
+                // 直接匹配完整路径中的文件名区间（不区分大小写），不为每个文件创建新字符串
+                return matchesName(path);
+            case "搜索图片":
+                return isImageFile(path);
+            case "搜索音频":
+                return isAudioFile(path);
+            case "搜索视频":
+                return isVideoFile(path);
+            case "搜索文档":
+                return isDocumentFile(path);
+            case "搜索压缩文件":
+                return isArchiveFile(path);
+            default:
+                return false;
+        }
+    }
+
+    private static int parseLargestCount(String pattern) {
+        try {
+            int count = Integer.parseInt(pattern.trim());
+            return count > 0 ? Math.min(count, MAX_RESULTS / 2) : DEFAULT_LARGEST_COUNT;
+        } catch (NumberFormatException e) {
+            return DEFAULT_LARGEST_COUNT;
+        }
+    }
+
+    // 遍历过程中定期把当前排行作为中间结果发布，界面据此实时刷新
+    private void publishRankingPeriodically() {
+        long now = System.nanoTime();
+        if (now - lastStatsNanos > STATS_INTERVAL_NANOS) {
+            lastStatsNanos = now;
+            updateValue(buildRanking());
+            updateMessage("已遍历 " + largestItems.getFileCount() + " 个文件，"
+                    + FileUtils.formatSize(largestItems.getTotalBytes()));
+        }
+    }
+
+    /**
+     * 当前排行：先文件后文件夹，各自从大到小；文件夹的大小为其中所有文件之和
+     */
+    private List<FileItem> buildRanking() {
+        List<FileItem> ranking = new ArrayList<>();
+        for (LargestItemsTracker.Entry entry : largestItems.getLargestFiles()) {
+            ranking.add(rankingItem(entry, false));
+        }
+        for (LargestItemsTracker.Entry entry : largestItems.getLargestDirectories()) {
+            ranking.add(rankingItem(entry, true));
+        }
+        // 只保留仍在排行中的项
+        rankingItems.values().retainAll(ranking);
+        return ranking;
+    }
+
+    // 排行在两次发布之间大多不变，复用已创建的 FileItem（文件夹离开遍历后大小不再变化）
+    private FileItem rankingItem(LargestItemsTracker.Entry entry, boolean directory) {
+        FileItem item = rankingItems.get(entry.getPath());
+        if (item == null) {
+            item = new FileItem(entry.getPath());
+            if (directory) {
+                item.setSize(entry.getSize());
+                item.setType("文件夹 (合计)");
+            }
+            rankingItems.put(entry.getPath(), item);
+        }
+        return item;
+    }
+
+    /**
+     * 对文件名区间打分（不为每个文件创建新字符串），定期发布当前排行
+     */
+    private void scoreFuzzy(Path path) {
+        String fullPath = path.toString();
+        int nameStart = fullPath.lastIndexOf(File.separatorChar) + 1;
+        int score = fuzzyMatcher.score(fullPath, nameStart, fullPath.length());
+        fuzzyScanned++;
+        if (score >= 0) {
+            fuzzyRanking.offer(path, score);
+        }
+
+        long now = System.nanoTime();
+        if (now - lastStatsNanos > STATS_INTERVAL_NANOS) {
+            lastStatsNanos = now;
+            updateValue(buildFuzzyRanking());
+            updateMessage("已比较 " + fuzzyScanned + " 个文件名");
+        }
+    }
+
+    private List<FileItem> buildFuzzyRanking() {
+        List<FileItem> ranking = new ArrayList<>();
+        for (FuzzyMatcher.Match match : fuzzyRanking.getMatches()) {
+            ranking.add(rankingItems.computeIfAbsent(match.getPath(), FileItem::new));
+        }
+        rankingItems.values().retainAll(ranking);
+        return ranking;
+    }
+
+    /**
+     * 比较候选文件内容，按组输出重复文件；类型列显示组号和可回收空间
+     */
+    private void publishDuplicates(List<FileItem> results) {
+        List<DuplicateFinder.Group> groups = duplicateFinder.find(() -> isCancelled() || cancelled, this::updateMessage);
+
+        long reclaimable = 0;
+        int groupNumber = 0;
+        for (DuplicateFinder.Group group : groups) {
+            reclaimable += group.getReclaimableBytes();
+            groupNumber++;
+            if (results.size() >= MAX_RESULTS) {
+                continue;
+            }
+            String label = "重复组 " + groupNumber + " (" + group.getFiles().size() + " 个, 可回收 "
+                    + FileUtils.formatSize(group.getReclaimableBytes()) + ")";
+            for (Path file : group.getFiles()) {
+                FileItem item = new FileItem(file);
+                item.setType(label);
+                results.add(item);
+            }
+        }
+        resultCount = results.size();
+
+        updateMessage("找到 " + groups.size() + " 组重复文件，共可回收 " + FileUtils.formatSize(reclaimable)
+                + " (" + duplicateFinder.getStatsSummary() + "，" + BufferPool.getInstance().getStatsSummary() + ")");
+    }
+
+    /**
+     * 在上一次的结果中重新匹配：文件名直接比较，内容搜索只重新扫描这些文件
+     */
+    private void refinePreviousResults(List<FileItem> results) {
+        updateMessage("正在细化上一次的 " + refineFrom.size() + " 个结果: " + pattern);
+        for (FileItem item : refineFrom) {
+            if (isCancelled() || cancelled) {
+                break;
+            }
+            if (contentPipeline != null) {
+                if (submitContentCandidate(item.getPath(), item.getSize()) == FileVisitResult.TERMINATE) {
+                    break;
+                }
+            } else if (nameMatcher != null && matchesName(item.getPath())) {
+                results.add(item);
+                resultCount++;
+            }
+        }
+    }
+
+    /**
+     * 运行中的文件名搜索收到更严格的关键字时，不重新遍历，直接换用新匹配器继续。
+     * 返回false表示无法细化（模式或根目录不同、不是细化、已结束或结果已截断），需要重新搜索。
+     */
+    public synchronized boolean narrowTo(List<Path> roots, String newMode, String newPattern) {
+        if (finished || isCancelled() || cancelled || nameMatcher == null || resultCount >= MAX_RESULTS
+                || !mode.equals(newMode) || !searchRoots.equals(roots)) {
+            return false;
+        }
+        String current = pendingPattern != null ? pendingPattern : pattern;
+        if (!isRefinement(mode, current, newPattern)) {
+            return false;
+        }
+        pendingPattern = newPattern;
+        return true;
+    }
+
+    // 在遍历线程中应用细化后的关键字，并过滤已找到的结果
+    private synchronized void applyPendingPattern(List<FileItem> results) {
+        String next = pendingPattern;
+        if (next == null) {
+            return;
+        }
+        pendingPattern = null;
+        pattern = next;
+        nameMatcher = compileNameMatcher(mode, next);
+        results.removeIf(item -> !matchesName(item.getPath()));
+        resultCount = results.size();
+        updateMessage("正在搜索: " + next + " (已找到 " + resultCount + " 个结果)");
+    }
+
+    private boolean matchesName(Path path) {
+        String fullPath = path.toString();
+        int nameStart = fullPath.lastIndexOf(File.separatorChar) + 1;
+        return nameMatcher.matches(fullPath, nameStart, fullPath.length());
+    }
+
+    private static GlobMatcher compileNameMatcher(String mode, String pattern) {
+        boolean wildcardMode = mode.equals("通配符匹配") || mode.equals("查找重复文件")
+                || (mode.equals(ARCHIVE_ENTRIES_MODE) && pattern != null
+                && !pattern.trim().startsWith(ARCHIVE_CONTENT_PREFIX));
+        if (wildcardMode && pattern != null && !pattern.trim().isEmpty()) {
+            // 认为用户输入的两端都有*，匹配部分字符串
+            return GlobMatcher.compile("*" + pattern.trim() + "*");
+        } else if (mode.equals("字符串匹配") && pattern != null) {
+            return GlobMatcher.containing(pattern);
+        }
+        return null;
+    }
+
+    /**
+     * 新关键字是否只会缩小旧关键字的结果集：两端隐含 * 的匹配中，
+     * 旧关键字（忽略大小写）作为连续子串出现在新关键字里时成立。
+     * 字符类 [...] 可能因追加字符而改变含义，此时不视为细化。
+     */
+    static boolean isRefinement(String mode, String previous, String next) {
+        if (previous == null || next == null) {
+            return false;
+        }
+        switch (mode) {
+            case "字符串匹配":
+                return !previous.isEmpty() && GlobMatcher.containing(previous).matches(next);
+            case "通配符匹配":
+            case "文本文件内容通配符匹配": {
+                String before = previous.trim();
+                String after = next.trim();
+                if (before.isEmpty() || before.indexOf('[') >= 0 || after.indexOf('[') >= 0) {
+                    return false;
+                }
+                return GlobMatcher.containing(before).matches(after);
+            }
+            default:
+                return false;
+        }
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public List<Path> getSearchRoots() {
+        return searchRoots;
+    }
+
+    /**
+     * 结果是否因数量上限被截断（截断的结果不能作为细化的基础）
+     */
+    public boolean isTruncated() {
+        return resultCount >= MAX_RESULTS;
     }
 
     @Override
@@ -188,32 +795,99 @@ public class SearchTask extends Task<List<FileItem>> {
         return super.cancel(mayInterruptIfRunning);
     }
 
-    // 判断是否是文本文件
-    private boolean isTextFile(Path path) {
+    // 按扩展名判断是否是文本文件（只用于 type:text 过滤；内容搜索按内容判断，见 TextFileDetector）
+    static boolean isTextFile(Path path) {
         String fileName = path.getFileName().toString().toLowerCase();
         return fileName.endsWith(".txt") || fileName.endsWith(".log") || fileName.endsWith(".ini") ||
                 fileName.endsWith(".java") || fileName.endsWith(".py") || fileName.endsWith(".js") ||
                 fileName.endsWith(".html") || fileName.endsWith(".css") || fileName.endsWith(".xml") ||
-                fileName.endsWith(".json");
+                fileName.endsWith(".json") || fileName.endsWith(".md") || fileName.endsWith(".yaml") ||
+                fileName.endsWith(".yml") || fileName.endsWith(".sql") || fileName.endsWith(".properties") ||
+                fileName.endsWith(".sh") || fileName.endsWith(".csv");
     }
 
-    // 搜索文件内容
-    private boolean searchFileContent(Path path, Pattern contentPattern) {
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (contentPattern.matcher(line).find()) { // 使用find()匹配部分
-                    return true;
-                }
+    /**
+     * 使用三元组索引缩小候选范围，返回false表示该目录没有索引
+     */
+    private boolean searchIndexedRoot(Path startDir) throws Exception {
+        TrigramIndex index = TrigramIndex.findFor(startDir);
+        if (index == null) {
+            return false;
+        }
+
+        updateMessage("正在更新内容索引: " + index.getRoot());
+        index.refresh(() -> isCancelled() || cancelled);
+
+        List<TrigramIndex.IndexedFile> candidates = index.query(contentMatcher.getLiterals(), startDir);
+        updateMessage("索引候选 " + candidates.size() + " 个文件 (" + index.getStatsSummary() + ")");
+        for (TrigramIndex.IndexedFile candidate : candidates) {
+            if (submitContentCandidate(candidate.getPath(), candidate.getSize()) == FileVisitResult.TERMINATE) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    // 将候选文件提交给内容搜索流水线，队列满时在此阻塞
+    private FileVisitResult submitContentCandidate(Path path, long size) {
+        try {
+            if (!contentPipeline.offer(path, size)) {
+                return FileVisitResult.TERMINATE;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FileVisitResult.TERMINATE;
+        }
+
+        long now = System.nanoTime();
+        if (now - lastStatsNanos > STATS_INTERVAL_NANOS) {
+            lastStatsNanos = now;
+            updateMessage("正在搜索内容: " + contentPipeline.getThroughputSummary());
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    /**
+     * 在遍历线程中按属性和名称求值高级查询；结果取决于文件内容时交给流水线扫描
+     */
+    private FileVisitResult visitQueryCandidate(Path path, BasicFileAttributes attrs, List<FileItem> results) {
+        if (contentPipeline == null && resultCount >= MAX_RESULTS) {
+            updateMessage("已达到最大结果限制 (" + MAX_RESULTS + " 个结果)，停止搜索");
+            return FileVisitResult.TERMINATE;
+        }
+
+        int value = query.evaluate(queryCandidate.set(path, attrs), false);
+        if (value == SearchQuery.FALSE) {
+            return FileVisitResult.CONTINUE;
+        }
+        if (contentPipeline != null) {
+            // 确定命中的文件也经过流水线，保证结果顺序且只由合并线程写入结果列表
+            return submitContentCandidate(path, attrs.isRegularFile() ? attrs.size() : 0);
+        }
+
+        results.add(new FileItem(path));
+        resultCount++;
+        updateMessage("找到: " + path.getFileName() + " (已找到 " + resultCount + " 个结果)");
+        return FileVisitResult.CONTINUE;
+    }
+
+    // 在扫描线程中完整求值高级查询（包括内容条件）
+    private boolean evaluateQueryFully(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            return query.evaluate(new SearchQuery.Candidate().set(path, attrs), true) == SearchQuery.TRUE;
         } catch (IOException e) {
-            // 忽略读取错误
+            return false;
         }
-        return false;
+    }
+
+    // 搜索文件内容（按字节扫描，只对候选行做通配符校验）
+    private boolean searchFileContent(Path path) {
+        return TextFileDetector.isText(path) && contentMatcher.matches(path, MAX_CONTENT_SCAN_BYTES);
     }
 
     // 判断是否是图片文件
-    private boolean isImageFile(Path path) {
+    static boolean isImageFile(Path path) {
         String fileName = path.getFileName().toString().toLowerCase();
         return fileName.endsWith(".jpg") || fileName.endsWith(".jpeg") || fileName.endsWith(".png") ||
                 fileName.endsWith(".gif") || fileName.endsWith(".bmp") || fileName.endsWith(".webp") ||
@@ -221,21 +895,21 @@ public class SearchTask extends Task<List<FileItem>> {
     }
 
     // 判断是否是音频文件
-    private boolean isAudioFile(Path path) {
+    static boolean isAudioFile(Path path) {
         String fileName = path.getFileName().toString().toLowerCase();
         return fileName.endsWith(".mp3") || fileName.endsWith(".wav") || fileName.endsWith(".flac") ||
                 fileName.endsWith(".m4a");
     }
 
     // 判断是否是视频文件
-    private boolean isVideoFile(Path path) {
+    static boolean isVideoFile(Path path) {
         String fileName = path.getFileName().toString().toLowerCase();
         return fileName.endsWith(".mp4") || fileName.endsWith(".avi") || fileName.endsWith(".mov") ||
                 fileName.endsWith(".wmv") || fileName.endsWith(".mkv");
     }
 
     // 判断是否是文档文件
-    private boolean isDocumentFile(Path path) {
+    static boolean isDocumentFile(Path path) {
         String fileName = path.getFileName().toString().toLowerCase();
         return fileName.endsWith(".txt") || fileName.endsWith(".pdf") || fileName.endsWith(".doc") ||
                 fileName.endsWith(".docx") || fileName.endsWith(".xls") || fileName.endsWith(".xlsx") ||
@@ -243,7 +917,7 @@ public class SearchTask extends Task<List<FileItem>> {
     }
 
     // 判断是否是压缩文件
-    private boolean isArchiveFile(Path path) {
+    static boolean isArchiveFile(Path path) {
         String fileName = path.getFileName().toString().toLowerCase();
         return fileName.endsWith(".zip") || fileName.endsWith(".rar") || fileName.endsWith(".7z") ||
                 fileName.endsWith(".tar") || fileName.endsWith(".gz");
@@ -259,197 +933,9 @@ public class SearchTask extends Task<List<FileItem>> {
     }
 
     /**
-     * 将通配符模式编译为正则表达式
+     * 通配符匹配（不区分大小写），保留原有的静态入口
      */
-    private Pattern compileWildcardPattern(String wildcard) {
-        // 转义正则表达式中的特殊字符
-        String regex = wildcard
-                .replace("\\", "\\\\")
-                .replace(".", "\\.")
-                .replace("+", "\\+")
-                .replace("(", "\\(")
-                .replace(")", "\\)")
-                .replace("{", "\\{")
-                .replace("}", "\\}")
-                .replace("[", "\\[")
-                .replace("]", "\\]")
-                .replace("|", "\\|")
-                .replace("^", "\\^")
-                .replace("$", "\\$");
-
-        regex = regex.replace("?", ".");
-        regex = regex.replace("*", ".*");
-
-        regex = restoreCharacterClasses(regex);
-
-        regex = "^" + regex + "$";
-
-        return Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-    }
-
-    /**
-     * 恢复正则表达式字符类语法
-     * 将转义后的字符类恢复为原始形式
-     */
-    private String restoreCharacterClasses(String regex) {
-        StringBuilder result = new StringBuilder();
-
-        for (int i = 0; i < regex.length(); i++) {
-            char c = regex.charAt(i);
-
-            if (c == '\\' && i + 1 < regex.length()) {
-                char next = regex.charAt(i + 1);
-
-                // 如果后面是[或]，并且是字符类的一部分，则恢复它们
-                if (next == '[' || next == ']') {
-                    // 检查是否是字符类的开始
-                    if (next == '[') {
-                        // 向前查找字符类的结束
-                        boolean isCharClass = false;
-                        for (int j = i + 2; j < regex.length(); j++) {
-                            if (regex.charAt(j) == '\\' && j + 1 < regex.length() && regex.charAt(j + 1) == ']') {
-                                isCharClass = true;
-                                break;
-                            }
-                        }
-
-                        if (isCharClass) {
-                            result.append('[');
-                            i++; // 跳过反斜杠
-                            continue;
-                        }
-                    }
-                }
-            }
-
-            result.append(c);
-        }
-
-        // 将字符类中的转义字符恢复
-        String restored = result.toString();
-        // 将字符类中的转义方括号恢复
-        restored = restored.replace("\\[", "[");
-        restored = restored.replace("\\]", "]");
-
-        return restored;
-    }
-
     public static boolean wildcardMatch(String text, String pattern) {
-        return wildcardMatch(text, pattern, 0, 0);
-    }
-
-    private static boolean wildcardMatch(String text, String pattern, int textIndex, int patternIndex) {
-        int textLen = text.length();
-        int patternLen = pattern.length();
-
-        while (patternIndex < patternLen) {
-            char p = pattern.charAt(patternIndex);
-
-            if (p == '*') {
-                // 跳过连续的*
-                while (patternIndex < patternLen && pattern.charAt(patternIndex) == '*') {
-                    patternIndex++;
-                }
-
-                // 如果*是模式中的最后一个字符
-                if (patternIndex == patternLen) {
-                    return true;
-                }
-
-                // 尝试匹配*后面的部分
-                for (int i = textIndex; i < textLen; i++) {
-                    if (wildcardMatch(text, pattern, i, patternIndex)) {
-                        return true;
-                    }
-                }
-                return false;
-            } else if (p == '?') {
-                if (textIndex >= textLen) {
-                    return false;
-                }
-                textIndex++;
-                patternIndex++;
-            } else if (p == '[') {
-                // 处理字符类
-                patternIndex++; // 跳过[
-                boolean negate = false;
-
-                // 检查是否有否定符
-                if (patternIndex < patternLen && pattern.charAt(patternIndex) == '!') {
-                    negate = true;
-                    patternIndex++;
-                } else if (patternIndex < patternLen && pattern.charAt(patternIndex) == '^') {
-                    negate = true;
-                    patternIndex++;
-                }
-
-                if (textIndex >= textLen) {
-                    return false;
-                }
-
-                char textChar = Character.toLowerCase(text.charAt(textIndex));
-                boolean matched = false;
-                boolean range = false;
-                char lastChar = 0;
-
-                while (patternIndex < patternLen && pattern.charAt(patternIndex) != ']') {
-                    char c = Character.toLowerCase(pattern.charAt(patternIndex));
-
-                    if (c == '-' && lastChar != 0 && patternIndex + 1 < patternLen && pattern.charAt(patternIndex + 1) != ']') {
-                        // 处理范围匹配，如[a-z]
-                        range = true;
-                        patternIndex++;
-                        c = Character.toLowerCase(pattern.charAt(patternIndex));
-
-                        if (lastChar <= textChar && textChar <= c) {
-                            matched = true;
-                        }
-                        range = false;
-                        lastChar = 0;
-                    } else {
-                        if (range) {
-                            // 如果是范围匹配的一部分
-                            if (lastChar <= textChar && textChar <= c) {
-                                matched = true;
-                            }
-                            range = false;
-                        } else {
-                            if (c == textChar) {
-                                matched = true;
-                            }
-                            lastChar = c;
-                        }
-                    }
-
-                    patternIndex++;
-                }
-
-                if (patternIndex >= patternLen || pattern.charAt(patternIndex) != ']') {
-                    return false; // 字符类没有正确结束
-                }
-
-                patternIndex++; // 跳过]
-
-                if (negate) {
-                    if (matched) {
-                        return false;
-                    }
-                } else {
-                    if (!matched) {
-                        return false;
-                    }
-                }
-
-                textIndex++;
-            } else {
-                if (textIndex >= textLen || Character.toLowerCase(text.charAt(textIndex)) != Character.toLowerCase(p)) {
-                    return false;
-                }
-                textIndex++;
-                patternIndex++;
-            }
-        }
-
-        return textIndex == textLen;
+        return GlobMatcher.compile(pattern).matches(text);
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.fileexplorer;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 智能文件夹：保存的搜索（根目录、模式、关键字），在目录树中显示为虚拟文件夹。
+ * 结果由 SmartFolderManager 在后台维护，打开时直接显示上一次的结果。
+ */
+public class SmartFolder {
+    // 目录树中智能文件夹分组的占位路径，与 "此电脑" 相同，不对应真实目录
+    static final String TREE_GROUP_NAME = "智能文件夹";
+    // 占位路径用生成的编号，不用用户输入的名称（名称中可能有各平台路径中不允许的字符）
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final Path treePath = Paths.get(TREE_GROUP_NAME, "folder-" + NEXT_ID.incrementAndGet());
+
+    private final String name;
+    private final List<Path> roots;
+    private final String mode;
+    private final String pattern;
+
+    // 以下状态只由刷新线程写入
+    private volatile List<FileItem> results = List.of();
+    private volatile long lastRefreshMillis = 0;
+    private volatile long lastFullRefreshMillis = 0;
+    // 可增量维护的模式保存遍历过的目录及修改时间，下次只重新列出变化过的目录
+    private volatile SearchResultCache.Entry state;
+
+    public SmartFolder(String name, List<Path> roots, String mode, String pattern) {
+        this.name = name;
+        this.roots = List.copyOf(roots);
+        this.mode = mode;
+        this.pattern = pattern;
+    }
+
+    /**
+     * 名称只用于显示，不能为空或包含控制字符（例如换行）
+     */
+    public static boolean isValidName(String name) {
+        return name != null && !name.isBlank() && name.chars().noneMatch(Character::isISOControl);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Path> getRoots() {
+        return roots;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 在目录树中代表该文件夹的占位路径，只在本次运行中有效
+     */
+    public Path getTreePath() {
+        return treePath;
+    }
+
+    public List<FileItem> getResults() {
+        return results;
+    }
+
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    public long getLastFullRefreshMillis() {
+        return lastFullRefreshMillis;
+    }
+
+    /**
+     * 是否能按目录修改时间增量更新（文件名模式和不读取内容的高级查询）
+     */
+    public boolean isIncremental() {
+        return SearchTask.supportsRevalidation(roots, pattern, mode);
+    }
+
+    /**
+     * 结果是否只取决于文件名：增量更新即完整，不需要定期完整搜索
+     */
+    boolean isNameOnly() {
+        return SearchResultCache.keyFor(roots, pattern, mode) != null;
+    }
+
+    SearchResultCache.Entry getState() {
+        return state;
+    }
+
+    void update(List<FileItem> results, SearchResultCache.Entry state, boolean full) {
+        this.results = List.copyOf(results);
+        this.state = state;
+        this.lastRefreshMillis = System.currentTimeMillis();
+        if (full) {
+            this.lastFullRefreshMillis = lastRefreshMillis;
+        }
+    }
+}
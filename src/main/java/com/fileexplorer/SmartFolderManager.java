@@ -0,0 +1,229 @@
+package com.fileexplorer;
+
+import javafx.application.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 智能文件夹的保存和后台维护。
+ * 定期在独立的单线程中后台刷新：按文件名搜索的文件夹只重新列出修改时间变化过的目录（与搜索结果缓存相同的机制）；
+ * 不读取内容的高级查询（例如按大小）同样增量刷新，并对沿用的结果重新求值，
+ * 另外每隔 ATTRIBUTE_SWEEP_INTERVAL_MILLIS 完整搜索一次，发现原本未命中、属性后来变化的文件；
+ * 其余模式（内容条件等）间隔更长地完整重新搜索。打开文件夹时只显示已有结果，不触发搜索。
+ */
+public class SmartFolderManager {
+    private static SmartFolderManager instance;
+
+    // 增量刷新的间隔；需要完整重新搜索的文件夹按更长的间隔刷新
+    private static final long REFRESH_INTERVAL_SECONDS = 60;
+    private static final long FULL_REFRESH_INTERVAL_MILLIS = 10 * 60 * 1000L;
+    // 增量刷新的高级查询完整搜索的间隔（目录修改时间不反映文件属性变化）
+    private static final long ATTRIBUTE_SWEEP_INTERVAL_MILLIS = 60 * 60 * 1000L;
+
+    private static final Path STORE_FILE = Paths.get(System.getProperty("user.home"), ".fileexplorer",
+            "smart-folders.properties");
+
+    private final List<SmartFolder> folders = new ArrayList<>();
+    private final Set<SmartFolder> refreshing = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<SmartFolder> updateListener;
+    private boolean started = false;
+
+    private SmartFolderManager() {
+        load();
+    }
+
+    public static synchronized SmartFolderManager getInstance() {
+        if (instance == null) {
+            instance = new SmartFolderManager();
+        }
+        return instance;
+    }
+
+    /**
+     * 启动定期刷新，并立即刷新所有文件夹一次
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        ThreadPoolManager.getInstance().getScheduledExecutor().scheduleWithFixedDelay(this::refreshDue,
+                0, REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 文件夹刷新完成后在 JavaFX 线程中回调
+     */
+    public void setUpdateListener(Consumer<SmartFolder> listener) {
+        this.updateListener = listener;
+    }
+
+    public synchronized List<SmartFolder> getFolders() {
+        return new ArrayList<>(folders);
+    }
+
+    /**
+     * 根据目录树中的占位路径查找智能文件夹，不是智能文件夹时返回null
+     */
+    public synchronized SmartFolder find(Path treePath) {
+        if (treePath == null || treePath.isAbsolute()) {
+            return null;
+        }
+        for (SmartFolder folder : folders) {
+            if (folder.getTreePath().equals(treePath)) {
+                return folder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 是否为智能文件夹分组或其中的文件夹（目录树中的占位路径）
+     */
+    public static boolean isSmartFolderPath(Path path) {
+        return path != null && !path.isAbsolute() && path.getNameCount() <= 2
+                && path.getName(0).toString().equals(SmartFolder.TREE_GROUP_NAME);
+    }
+
+    /**
+     * 添加智能文件夹，名称已存在时返回false
+     */
+    public boolean add(SmartFolder folder) {
+        synchronized (this) {
+            for (SmartFolder existing : folders) {
+                if (existing.getName().equals(folder.getName())) {
+                    return false;
+                }
+            }
+            folders.add(folder);
+            save();
+        }
+        refreshLater(folder);
+        return true;
+    }
+
+    public synchronized void remove(SmartFolder folder) {
+        folders.remove(folder);
+        save();
+    }
+
+    /**
+     * 在后台刷新指定文件夹（已在刷新时忽略）
+     */
+    public void refreshLater(SmartFolder folder) {
+        if (!refreshing.add(folder)) {
+            return;
+        }
+        ThreadPoolManager.getInstance().getSmartFolderExecutor().execute(() -> {
+            try {
+                refresh(folder);
+            } finally {
+                refreshing.remove(folder);
+            }
+        });
+    }
+
+    private void refreshDue() {
+        long now = System.currentTimeMillis();
+        for (SmartFolder folder : getFolders()) {
+            if (folder.getState() != null || folder.getLastRefreshMillis() == 0
+                    || now - folder.getLastRefreshMillis() >= FULL_REFRESH_INTERVAL_MILLIS) {
+                refreshLater(folder);
+            }
+        }
+    }
+
+    /**
+     * 在当前线程执行一次搜索；有上一次的目录状态时只检查变化过的目录
+     */
+    private void refresh(SmartFolder folder) {
+        SearchTask task = new SearchTask(folder.getRoots(), folder.getPattern(), folder.getMode());
+        boolean sweepDue = !folder.isNameOnly()
+                && System.currentTimeMillis() - folder.getLastFullRefreshMillis() >= ATTRIBUTE_SWEEP_INTERVAL_MILLIS;
+        boolean full = folder.getState() == null || sweepDue;
+        if (!full) {
+            task.revalidate(folder.getState());
+        }
+        task.run();
+        try {
+            List<FileItem> results = task.get();
+            folder.update(results, task.getCompletedEntry(), full);
+        } catch (Exception e) {
+            System.err.println("刷新智能文件夹失败: " + folder.getName() + " - " + e.getMessage());
+            return;
+        }
+
+        Consumer<SmartFolder> listener = updateListener;
+        if (listener != null) {
+            Platform.runLater(() -> listener.accept(folder));
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(STORE_FILE)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(STORE_FILE, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            System.err.println("读取智能文件夹失败: " + e.getMessage());
+            return;
+        }
+
+        int count = Integer.parseInt(properties.getProperty("count", "0"));
+        for (int i = 0; i < count; i++) {
+            String name = properties.getProperty(i + ".name");
+            String mode = properties.getProperty(i + ".mode");
+            String pattern = properties.getProperty(i + ".pattern");
+            String roots = properties.getProperty(i + ".roots", "");
+            if (!SmartFolder.isValidName(name) || mode == null || pattern == null) {
+                continue;
+            }
+            List<Path> rootPaths = new ArrayList<>();
+            for (String root : roots.split(File.pathSeparator)) {
+                if (!root.isEmpty()) {
+                    rootPaths.add(Paths.get(root));
+                }
+            }
+            folders.add(new SmartFolder(name, rootPaths, mode, pattern));
+        }
+    }
+
+    private void save() {
+        Properties properties = new Properties();
+        properties.setProperty("count", String.valueOf(folders.size()));
+        for (int i = 0; i < folders.size(); i++) {
+            SmartFolder folder = folders.get(i);
+            List<String> roots = new ArrayList<>();
+            folder.getRoots().forEach(root -> roots.add(root.toString()));
+            properties.setProperty(i + ".name", folder.getName());
+            properties.setProperty(i + ".mode", folder.getMode());
+            properties.setProperty(i + ".pattern", folder.getPattern());
+            properties.setProperty(i + ".roots", String.join(File.pathSeparator, roots));
+        }
+
+        try {
+            Files.createDirectories(STORE_FILE.getParent());
+            try (Writer writer = Files.newBufferedWriter(STORE_FILE, StandardCharsets.UTF_8)) {
+                properties.store(writer, "FileExplorer smart folders");
+            }
+        } catch (IOException e) {
+            UIUtils.showAlert("错误", "保存智能文件夹失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按内容判断文件是否为文本：只读取文件开头的一块，依据BOM、NUL字节和控制字符比例分类。
+ * 判断结果按文件的大小和修改时间缓存，文件未变化时再次搜索不需要重新读取。
+ * 常见二进制格式的扩展名直接排除，不打开文件。
+ */
+public final class TextFileDetector {
+    // 读取的开头字节数
+    static final int SNIFF_SIZE = 8 * 1024;
+
+    private static final int MAX_CACHED_FILES = 65_536;
+
+    // 控制字符（不含制表、换行等常见空白）超过该比例视为二进制
+    private static final double MAX_CONTROL_RATIO = 0.1;
+
+    // 无需读取即可确定为二进制的扩展名
+    private static final Set<String> BINARY_EXTENSIONS = Set.of(
+            "class", "jar", "war", "ear", "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst",
+            "exe", "dll", "so", "dylib", "o", "a", "lib", "obj", "bin", "iso", "img", "dmg",
+            "png", "jpg", "jpeg", "gif", "bmp", "webp", "ico", "tif", "tiff", "psd",
+            "mp3", "wav", "flac", "aac", "ogg", "m4a", "mp4", "avi", "mkv", "mov", "wmv", "flv",
+            "pdf", "doc", "docx", "xls", "xlsx", "ppt", "pptx", "odt",
+            "ttf", "otf", "woff", "woff2", "pyc", "db", "sqlite", "pack", "idx"
+    );
+
+    private static final class Verdict {
+        final long size;
+        final long modifiedMillis;
+        final boolean text;
+
+        Verdict(long size, long modifiedMillis, boolean text) {
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.text = text;
+        }
+    }
+
+    private static final Map<Path, Verdict> CACHE = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Verdict> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    };
+
+    private TextFileDetector() {
+    }
+
+    /**
+     * 判断文件是否为文本文件；读取失败或空文件返回false
+     */
+    public static boolean isText(Path file) {
+        try {
+            return isText(file, Files.readAttributes(file, BasicFileAttributes.class));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static boolean isText(Path file, BasicFileAttributes attrs) {
+        if (!attrs.isRegularFile() || attrs.size() == 0 || isKnownBinaryName(file.getFileName().toString())) {
+            return false;
+        }
+
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+        synchronized (CACHE) {
+            Verdict cached = CACHE.get(file);
+            if (cached != null && cached.size == size && cached.modifiedMillis == modified) {
+                return cached.text;
+            }
+        }
+
+        boolean text;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer block = BufferPool.getInstance().acquire((int) Math.min(SNIFF_SIZE, size));
+            try {
+                while (block.hasRemaining() && channel.read(block) >= 0) {
+                    // 读满开头的一块
+                }
+                text = looksLikeText(block, block.position());
+            } finally {
+                BufferPool.getInstance().release(block);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        synchronized (CACHE) {
+            CACHE.put(file, new Verdict(size, modified, text));
+        }
+        return text;
+    }
+
+    /**
+     * 文件名的扩展名属于常见二进制格式
+     */
+    public static boolean isKnownBinaryName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot == fileName.length() - 1) {
+            return false;
+        }
+        return BINARY_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase());
+    }
+
+    /**
+     * 根据开头的字节判断是否为文本。
+     * 有BOM时直接认定为文本；NUL字节只在奇数位置大量出现时视为无BOM的UTF-16LE，否则为二进制；
+     * 大于等于0x80的字节不计入控制字符，以兼容UTF-8和GBK。
+     */
+    static boolean looksLikeText(ByteBuffer data, int length) {
+        if (length == 0) {
+            return false;
+        }
+        if (hasBom(data, length)) {
+            return true;
+        }
+
+        int evenNuls = 0;
+        int oddNuls = 0;
+        int controls = 0;
+        for (int i = 0; i < length; i++) {
+            int b = data.get(i) & 0xFF;
+            if (b == 0) {
+                if ((i & 1) == 0) {
+                    evenNuls++;
+                } else {
+                    oddNuls++;
+                }
+            } else if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x08 && b != 0x1B
+                    || b == 0x7F) {
+                controls++;
+            }
+        }
+
+        if (evenNuls + oddNuls > 0) {
+            // 无BOM的UTF-16LE：ASCII字符的高字节全为0
+            return evenNuls == 0 && oddNuls >= length / 4;
+        }
+        return controls <= length * MAX_CONTROL_RATIO;
+    }
+
+    private static boolean hasBom(ByteBuffer data, int length) {
+        if (length >= 3 && (data.get(0) & 0xFF) == 0xEF && (data.get(1) & 0xFF) == 0xBB
+                && (data.get(2) & 0xFF) == 0xBF) {
+            return true;
+        }
+        // UTF-16/UTF-32 的 BOM（UTF-32LE 的 BOM 以 FF FE 开头，同样覆盖）
+        if (length >= 2 && ((data.get(0) & 0xFF) == 0xFF && (data.get(1) & 0xFF) == 0xFE
+                || (data.get(0) & 0xFF) == 0xFE && (data.get(1) & 0xFF) == 0xFF)) {
+            return true;
+        }
+        return length >= 4 && data.get(0) == 0 && data.get(1) == 0 && (data.get(2) & 0xFF) == 0xFE
+                && (data.get(3) & 0xFF) == 0xFF;
+    }
+}
@@ -21,6 +21,15 @@ public class ThreadPoolManager {
     // 定时任务线程池
     private final ScheduledExecutorService scheduledExecutor;
 
+    // 搜索流水线线程池（扫描线程会阻塞在磁盘读取上，按需创建，避免占用后台任务线程）
+    private final ExecutorService searchExecutor;
+
+    // 目录树复制的工作线程池（并发数由调用方按设备限制；与文件操作线程池分开，避免外层任务占满线程后互相等待）
+    private final ExecutorService copyExecutor;
+
+    // 智能文件夹刷新线程池（单线程，与文件操作和后台任务分开，定期刷新不占用用户操作的线程）
+    private final ExecutorService smartFolderExecutor;
+
     // 统计活跃任务数
     private final AtomicInteger activeTasks = new AtomicInteger(0);
 
@@ -38,6 +47,15 @@ public class ThreadPoolManager {
 
         // 定时任务线程池
         scheduledExecutor = Executors.newScheduledThreadPool(2, new NamedThreadFactory("Scheduled-"));
+
+        // 搜索流水线线程池
+        searchExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("Search-"));
+
+        // 目录树复制线程池
+        copyExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("Copy-"));
+
+        // 智能文件夹刷新线程池
+        smartFolderExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("SmartFolder-"));
     }
 
     public static synchronized ThreadPoolManager getInstance() {
@@ -137,6 +155,27 @@ public class ThreadPoolManager {
         return scheduledExecutor;
     }
 
+    /**
+     * 获取搜索流水线线程池
+     */
+    public ExecutorService getSearchExecutor() {
+        return searchExecutor;
+    }
+
+    /**
+     * 获取目录树复制线程池
+     */
+    public ExecutorService getCopyExecutor() {
+        return copyExecutor;
+    }
+
+    /**
+     * 获取智能文件夹刷新线程池
+     */
+    public ExecutorService getSmartFolderExecutor() {
+        return smartFolderExecutor;
+    }
+
     /**
      * 获取活跃任务数
      */
@@ -172,6 +211,9 @@ public class ThreadPoolManager {
         uiUpdateExecutor.shutdown();
         backgroundTaskExecutor.shutdown();
         scheduledExecutor.shutdown();
+        searchExecutor.shutdown();
+        copyExecutor.shutdown();
+        smartFolderExecutor.shutdown();
     }
 
     /**
@@ -182,6 +224,9 @@ public class ThreadPoolManager {
         uiUpdateExecutor.shutdownNow();
         backgroundTaskExecutor.shutdownNow();
         scheduledExecutor.shutdownNow();
+        searchExecutor.shutdownNow();
+        copyExecutor.shutdownNow();
+        smartFolderExecutor.shutdownNow();
     }
 
     /**
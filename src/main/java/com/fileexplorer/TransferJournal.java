@@ -0,0 +1,294 @@
+package com.fileexplorer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 复制/移动操作的断点日志，只追加写入：开头记录操作类型、目标目录和源路径，
+ * 之后每完成一个文件追加一行完成记录，大文件每复制 CHECKPOINT_INTERVAL 字节追加一行断点记录。
+ * 每条记录带有源文件当时的大小和修改时间，恢复时只有源文件未变化的记录才有效：
+ * 已完成的文件直接跳过，未完成的大文件从最后一个断点继续。
+ * 操作结束（成功或取消）后删除日志；程序退出或崩溃时日志保留，下次启动时提示恢复。
+ */
+public class TransferJournal {
+    // 断点间隔：每个断点之前把目标文件的数据同步到磁盘
+    static final long CHECKPOINT_INTERVAL = 256L * 1024 * 1024;
+
+    private static final Path JOURNAL_DIR = Paths.get(System.getProperty("user.home"), ".fileexplorer", "transfers");
+    private static final String SUFFIX = ".journal";
+
+    private static final String DONE = "D";
+    private static final String PARTIAL = "P";
+
+    private final Path file;
+    private final BatchFileOperationTask.OperationType type;
+    private final List<Path> sourcePaths;
+    private final Path targetDir;
+    private final FileCopier.Verification verification;
+
+    // 每个目标文件最后一条记录
+    private final Map<Path, Record> records = new ConcurrentHashMap<>();
+    private Writer writer;
+    // 删除后不再写入（取消时可能还有在途文件完成）
+    private boolean deleted = false;
+
+    /**
+     * 一条完成或断点记录，size 和 modified 为源文件写入记录时的属性
+     */
+    private static final class Record {
+        final boolean done;
+        final long size;
+        final long modified;
+        final long offset;
+
+        Record(boolean done, long size, long modified, long offset) {
+            this.done = done;
+            this.size = size;
+            this.modified = modified;
+            this.offset = offset;
+        }
+
+        boolean matches(BasicFileAttributes sourceAttrs) {
+            return size == sourceAttrs.size() && modified == sourceAttrs.lastModifiedTime().toMillis();
+        }
+    }
+
+    private TransferJournal(Path file, BatchFileOperationTask.OperationType type, List<Path> sourcePaths,
+                            Path targetDir, FileCopier.Verification verification) {
+        this.file = file;
+        this.type = type;
+        this.sourcePaths = List.copyOf(sourcePaths);
+        this.targetDir = targetDir;
+        this.verification = verification;
+    }
+
+    /**
+     * 为新的复制或移动操作创建日志并写入开头
+     */
+    public static TransferJournal create(BatchFileOperationTask.OperationType type, List<Path> sourcePaths,
+                                         Path targetDir, FileCopier.Verification verification) throws IOException {
+        Files.createDirectories(JOURNAL_DIR);
+        Path file = JOURNAL_DIR.resolve("transfer-" + System.currentTimeMillis() + "-" + System.nanoTime() % 1000
+                + SUFFIX);
+        TransferJournal journal = new TransferJournal(file, type, sourcePaths, targetDir, verification);
+        StringBuilder header = new StringBuilder();
+        header.append("op=").append(type.name()).append('\n');
+        header.append("verify=").append(verification.name()).append('\n');
+        header.append("target=").append(targetDir).append('\n');
+        for (Path source : sourcePaths) {
+            header.append("source=").append(source).append('\n');
+        }
+        journal.append(header.toString());
+        return journal;
+    }
+
+    /**
+     * 上次未完成的操作（按创建时间排序），无法解析的日志被忽略
+     */
+    public static List<TransferJournal> findPending() {
+        List<TransferJournal> journals = new ArrayList<>();
+        if (!Files.isDirectory(JOURNAL_DIR)) {
+            return journals;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(JOURNAL_DIR, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                TransferJournal journal = load(file);
+                if (journal != null) {
+                    journals.add(journal);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("读取传输日志失败: " + e.getMessage());
+        }
+        journals.sort((a, b) -> a.file.getFileName().toString().compareTo(b.file.getFileName().toString()));
+        return journals;
+    }
+
+    private static TransferJournal load(Path file) {
+        BatchFileOperationTask.OperationType type = null;
+        Path targetDir = null;
+        FileCopier.Verification verification = FileCopier.Verification.NONE;
+        List<Path> sources = new ArrayList<>();
+        Map<Path, Record> records = new ConcurrentHashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("op=")) {
+                    type = BatchFileOperationTask.OperationType.valueOf(line.substring(3));
+                } else if (line.startsWith("verify=")) {
+                    verification = FileCopier.Verification.valueOf(line.substring(7));
+                } else if (line.startsWith("target=")) {
+                    targetDir = Paths.get(line.substring(7));
+                } else if (line.startsWith("source=")) {
+                    sources.add(Paths.get(line.substring(7)));
+                } else {
+                    // D/P \t 大小 \t 修改时间 \t 偏移 \t 目标路径；最后一行可能因崩溃而不完整
+                    String[] fields = line.split("\t", 5);
+                    if (fields.length == 5 && (fields[0].equals(DONE) || fields[0].equals(PARTIAL))) {
+                        records.put(Paths.get(fields[4]), new Record(fields[0].equals(DONE),
+                                Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("传输日志无法解析，已忽略: " + file + " - " + e.getMessage());
+            return null;
+        }
+
+        if (type == null || targetDir == null || sources.isEmpty()) {
+            return null;
+        }
+        TransferJournal journal = new TransferJournal(file, type, sources, targetDir, verification);
+        journal.records.putAll(records);
+        return journal;
+    }
+
+    public BatchFileOperationTask.OperationType getType() {
+        return type;
+    }
+
+    public List<Path> getSourcePaths() {
+        return sourcePaths;
+    }
+
+    public Path getTargetDir() {
+        return targetDir;
+    }
+
+    public FileCopier.Verification getVerification() {
+        return verification;
+    }
+
+    /**
+     * 已完成的文件数（用于恢复提示）
+     */
+    public long getCompletedCount() {
+        return records.values().stream().filter(record -> record.done).count();
+    }
+
+    /**
+     * 是否有只复制了一部分、可从断点继续的目标文件
+     */
+    public boolean hasPartial() {
+        return records.values().stream().anyMatch(record -> !record.done);
+    }
+
+    /**
+     * 目标文件已由本次操作完整写入，且源文件此后没有变化
+     */
+    boolean isComplete(Path target, BasicFileAttributes sourceAttrs) {
+        Record record = records.get(target);
+        if (record == null || !record.done || !record.matches(sourceAttrs)) {
+            return false;
+        }
+        try {
+            return Files.size(target) == sourceAttrs.size();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 可以继续复制的位置：最后一个断点，源文件变化或目标文件短于断点时为0
+     */
+    long resumeOffset(Path target, BasicFileAttributes sourceAttrs) {
+        Record record = records.get(target);
+        if (record == null || record.done || !record.matches(sourceAttrs)) {
+            return 0;
+        }
+        try {
+            return Files.size(target) >= record.offset ? record.offset : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 记录断点，调用方需已把 offset 之前的数据同步到磁盘
+     */
+    void checkpoint(Path target, BasicFileAttributes sourceAttrs, long offset) {
+        write(target, new Record(false, sourceAttrs.size(), sourceAttrs.lastModifiedTime().toMillis(), offset));
+    }
+
+    void complete(Path target, BasicFileAttributes sourceAttrs) {
+        write(target, new Record(true, sourceAttrs.size(), sourceAttrs.lastModifiedTime().toMillis(),
+                sourceAttrs.size()));
+    }
+
+    /**
+     * 放弃恢复：删除只复制了一部分的目标文件和日志
+     */
+    public void discard() {
+        records.forEach((target, record) -> {
+            if (!record.done) {
+                try {
+                    Files.deleteIfExists(target);
+                } catch (IOException e) {
+                    System.err.println("删除不完整的目标文件失败: " + target + " - " + e.getMessage());
+                }
+            }
+        });
+        delete();
+    }
+
+    /**
+     * 操作结束，关闭并删除日志
+     */
+    public synchronized void delete() {
+        deleted = true;
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("删除传输日志失败: " + file + " - " + e.getMessage());
+        }
+    }
+
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+            writer = null;
+        }
+    }
+
+    private void write(Path target, Record record) {
+        records.put(target, record);
+        try {
+            append((record.done ? DONE : PARTIAL) + "\t" + record.size + "\t" + record.modified + "\t"
+                    + record.offset + "\t" + target + "\n");
+        } catch (IOException e) {
+            // 日志写入失败只影响恢复，不中止复制
+            System.err.println("写入传输日志失败: " + e.getMessage());
+        }
+    }
+
+    private synchronized void append(String text) throws IOException {
+        if (deleted) {
+            return;
+        }
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+        writer.write(text);
+        // 每条记录写入操作系统，程序崩溃时不丢失
+        writer.flush();
+    }
+}
@@ -0,0 +1,230 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 目录树复制引擎：遍历线程按遍历顺序创建目录（父目录总是先于子项创建），
+ * 文件交给有界的工作线程并行复制，大量小文件时不再受单线程逐个复制的延迟限制。
+ * 同时在途的文件数按源和目标设备确定（机械硬盘少、SSD多），同一批操作中的多个目录树可以共用一个上限。
+ * 文件和目录保留修改时间；目录的时间在所有文件复制完成后按先深后浅的顺序最后设置，
+ * 避免随后写入的子项改变已设置的时间。
+ */
+public class TreeCopier {
+    // 单个文件复制引擎（进度和取消回调由调用方设置，需线程安全）
+    private final FileCopier fileCopier;
+    private BooleanSupplier cancelCheck = () -> false;
+    private int parallelism = 0;
+    private Semaphore inFlightLimit;
+
+    private final LongAdder copiedFiles = new LongAdder();
+    // 校验不一致的文件不中止整个目录，记录后继续复制其余文件
+    private final Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+    // 被遍历策略跳过、没有复制的子树
+    private final List<String> skipped = new ArrayList<>();
+    private long elapsedNanos = 0;
+
+    /**
+     * 目录及其原始修改时间，按遍历顺序记录
+     */
+    private static final class DirectoryTime {
+        final Path target;
+        final FileTime modified;
+
+        DirectoryTime(Path target, FileTime modified) {
+            this.target = target;
+            this.modified = modified;
+        }
+    }
+
+    public TreeCopier(FileCopier fileCopier) {
+        this.fileCopier = fileCopier;
+    }
+
+    public void setCancelCheck(BooleanSupplier cancelCheck) {
+        this.cancelCheck = cancelCheck;
+    }
+
+    /**
+     * 同时在途的文件数，不设置时按设备自动确定
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 与其他目录树共用的在途文件上限（同一批操作并发复制多个目录时，总数仍按设备限制）；设置后忽略 setParallelism
+     */
+    public void setInFlightLimit(Semaphore inFlightLimit) {
+        this.inFlightLimit = inFlightLimit;
+    }
+
+    /**
+     * 按设备确定在途文件数：小文件的瓶颈是每个文件的打开、创建和元数据写入，
+     * 在读取并发建议值的基础上加倍，让设备队列保持非空；机械硬盘最多两个
+     */
+    static int recommendedParallelism(Path sourceDir, Path targetDir) {
+        int devices = Math.min(FileUtils.recommendedIoParallelism(sourceDir),
+                FileUtils.recommendedIoParallelism(targetDir.getParent() != null ? targetDir.getParent() : targetDir));
+        return Math.min(16, Math.max(2, devices * 2));
+    }
+
+    /**
+     * 复制整个目录树。任一文件失败时停止提交新文件，等在途文件结束后抛出第一个错误。
+     *
+     * @throws CancellationException 复制被取消
+     */
+    public void copy(Path sourceDir, Path targetDir) throws IOException {
+        long start = System.nanoTime();
+        Semaphore inFlight = inFlightLimit != null ? inFlightLimit
+                : new Semaphore(parallelism > 0 ? parallelism : recommendedParallelism(sourceDir, targetDir));
+        // 本目录树提交的文件，上限可能与其他目录树共用，不能靠取回全部许可等待
+        Phaser pending = new Phaser(1);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        List<DirectoryTime> directories = new ArrayList<>();
+        ExecutorService executor = ThreadPoolManager.getInstance().getCopyExecutor();
+        WalkPolicy policy = WalkPolicy.forCopy();
+
+        try {
+            Files.walkFileTree(sourceDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (cancelCheck.getAsBoolean() || failure.get() != null) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    // 按遍历设置跳过的目录（默认为伪文件系统）不复制，与计算总大小时的规则一致
+                    FileVisitResult decision = policy.checkDirectory(dir, attrs, sourceDir);
+                    if (decision != FileVisitResult.CONTINUE) {
+                        return decision;
+                    }
+
+                    // 父目录已在之前创建，新目录只需一次 mkdir，不再先检查是否存在
+                    Path target = targetDir.resolve(sourceDir.relativize(dir));
+                    try {
+                        Files.createDirectory(target);
+                    } catch (FileAlreadyExistsException e) {
+                        if (!Files.isDirectory(target)) {
+                            throw e;
+                        }
+                    }
+                    directories.add(new DirectoryTime(target, attrs.lastModifiedTime()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (cancelCheck.getAsBoolean() || failure.get() != null) {
+                        return FileVisitResult.TERMINATE;
+                    }
+
+                    Path target = targetDir.resolve(sourceDir.relativize(file));
+                    // 符号链接（包括指向目录的）按链接本身复制，与移动时一致
+                    if (attrs.isSymbolicLink()) {
+                        Files.copy(file, target, LinkOption.NOFOLLOW_LINKS, StandardCopyOption.REPLACE_EXISTING);
+                        copiedFiles.increment();
+                        return FileVisitResult.CONTINUE;
+                    }
+                    try {
+                        inFlight.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("复制被中断");
+                    }
+                    pending.register();
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                fileCopier.copy(file, target);
+                                Files.setLastModifiedTime(target, attrs.lastModifiedTime());
+                                copiedFiles.increment();
+                            } catch (FileCopier.ChecksumMismatchException e) {
+                                mismatches.add(e.getMessage());
+                            } catch (IOException e) {
+                                failure.compareAndSet(null, e);
+                            } catch (CancellationException e) {
+                                // 取消由遍历线程统一处理
+                            } finally {
+                                inFlight.release();
+                                pending.arriveAndDeregister();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // 线程池已关闭（程序退出）：任务不会执行，许可在这里归还
+                        inFlight.release();
+                        pending.arriveAndDeregister();
+                        throw new IOException("复制线程池已关闭: " + file, e);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } finally {
+            // 等待本目录树所有在途文件结束
+            pending.arriveAndAwaitAdvance();
+            elapsedNanos = System.nanoTime() - start;
+            for (Path dir : policy.getSkippedDirectories()) {
+                skipped.add("未复制（按遍历设置跳过）: " + dir);
+            }
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (cancelCheck.getAsBoolean()) {
+            throw new CancellationException("复制已取消: " + sourceDir);
+        }
+
+        // 子项写入会改变父目录的修改时间，因此从最深的目录开始设置
+        for (int i = directories.size() - 1; i >= 0; i--) {
+            DirectoryTime directory = directories.get(i);
+            Files.setLastModifiedTime(directory.target, directory.modified);
+        }
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    public long getCopiedFiles() {
+        return copiedFiles.sum();
+    }
+
+    /**
+     * 校验不一致的文件（已删除的副本），每项为一条说明
+     */
+    public List<String> getMismatches() {
+        return new ArrayList<>(mismatches);
+    }
+
+    /**
+     * 被跳过的子树，每项为一条说明
+     */
+    public List<String> getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * 最近一次复制的吞吐量摘要
+     */
+    public String getStatsSummary() {
+        double seconds = Math.max(elapsedNanos / 1e9, 0.001);
+        return String.format("复制 %d 个文件，%.0f 个/秒", copiedFiles.sum(), copiedFiles.sum() / seconds);
+    }
+}
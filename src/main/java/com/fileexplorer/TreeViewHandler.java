@@ -50,6 +50,7 @@ public class TreeViewHandler {
                             System.err.println("没有权限访问: " + rootDir);
                         }
                     }
+                    loadSmartFolders();
                 });
                 return null;
             }
@@ -60,13 +61,50 @@ public class TreeViewHandler {
         controller.getThreadPool().submitBackgroundTask(loadTask);
     }
 
+    /**
+     * 在驱动器之后显示智能文件夹分组（没有智能文件夹时不显示）
+     */
+    public void loadSmartFolders() {
+        TreeItem<Path> rootItem = controller.getTreeView().getRoot();
+        if (rootItem == null) {
+            return;
+        }
+
+        Path groupPath = Paths.get(SmartFolder.TREE_GROUP_NAME);
+        TreeItem<Path> group = null;
+        for (TreeItem<Path> child : rootItem.getChildren()) {
+            if (groupPath.equals(child.getValue())) {
+                group = child;
+                break;
+            }
+        }
+
+        List<SmartFolder> folders = SmartFolderManager.getInstance().getFolders();
+        if (folders.isEmpty()) {
+            if (group != null) {
+                rootItem.getChildren().remove(group);
+            }
+            return;
+        }
+        if (group == null) {
+            group = new TreeItem<>(groupPath);
+            rootItem.getChildren().add(group);
+        }
+        group.getChildren().clear();
+        for (SmartFolder folder : folders) {
+            group.getChildren().add(new TreeItem<>(folder.getTreePath()));
+        }
+        group.setExpanded(true);
+    }
+
     public ContextMenu createTreeContextMenu() {
         ContextMenu menu = new ContextMenu();
 
         MenuItem newFolder = new MenuItem("新建文件夹");
         newFolder.setOnAction(e -> {
             TreeItem<Path> selected = controller.getTreeView().getSelectionModel().getSelectedItem();
-            if (selected != null && selected.getValue() != null) {
+            if (selected != null && selected.getValue() != null
+                    && !SmartFolderManager.isSmartFolderPath(selected.getValue())) {
                 Path targetPath = selected.getValue();
                 UIUtils.showTextInputDialog("新建文件夹", "在 " + targetPath.getFileName() + " 中创建新文件夹", "请输入文件夹名称:", "新建文件夹").ifPresent(folderName -> {
                     if (!folderName.trim().isEmpty()) {
@@ -92,18 +130,66 @@ public class TreeViewHandler {
         MenuItem refresh = new MenuItem("刷新");
         refresh.setOnAction(e -> loadDirectoryTree());
 
+        MenuItem buildIndex = new MenuItem("建立内容索引");
+        buildIndex.setOnAction(e -> {
+            TreeItem<Path> selected = controller.getTreeView().getSelectionModel().getSelectedItem();
+            if (selected != null && selected.getValue() != null && Files.isDirectory(selected.getValue())) {
+                buildContentIndex(selected.getValue());
+            }
+        });
+
+        MenuItem saveSmartFolder = new MenuItem("保存当前搜索为智能文件夹");
+        saveSmartFolder.setOnAction(e -> controller.getSearchHandler().saveCurrentSearchAsSmartFolder());
+
+        MenuItem removeSmartFolder = new MenuItem("删除智能文件夹");
+        removeSmartFolder.setOnAction(e -> {
+            TreeItem<Path> selected = controller.getTreeView().getSelectionModel().getSelectedItem();
+            SmartFolder folder = selected == null ? null : SmartFolderManager.getInstance().find(selected.getValue());
+            if (folder != null && UIUtils.showConfirmDialog("删除智能文件夹", "确定删除智能文件夹 " + folder.getName()
+                    + " 吗？（不会删除任何文件）")) {
+                SmartFolderManager.getInstance().remove(folder);
+                loadSmartFolders();
+            }
+        });
+
         MenuItem properties = new MenuItem("属性");
         properties.setOnAction(e -> {
             TreeItem<Path> selected = controller.getTreeView().getSelectionModel().getSelectedItem();
-            if (selected != null && selected.getValue() != null) {
+            if (selected != null && selected.getValue() != null
+                    && !SmartFolderManager.isSmartFolderPath(selected.getValue())) {
                 controller.fileOperationHandler.showFileDetails(selected.getValue());
             }
         });
 
-        menu.getItems().addAll(newFolder, refresh, new SeparatorMenuItem(), properties);
+        menu.getItems().addAll(newFolder, refresh, buildIndex, new SeparatorMenuItem(), saveSmartFolder,
+                removeSmartFolder, new SeparatorMenuItem(), properties);
         return menu;
     }
 
+    /**
+     * 为目录建立（或增量更新）三元组内容索引，之后该目录下的内容搜索只扫描候选文件
+     */
+    private void buildContentIndex(Path dir) {
+        TrigramIndex index = TrigramIndex.getOrCreate(dir);
+        controller.getStatusLabel().setText("正在建立内容索引: " + dir);
+
+        Task<Void> indexTask = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                index.refresh(this::isCancelled);
+                return null;
+            }
+        };
+
+        indexTask.setOnSucceeded(e -> controller.getStatusLabel().setText(index.getStatsSummary()));
+        indexTask.setOnFailed(e -> {
+            TrigramIndex.remove(dir);
+            UIUtils.showAlert("错误", "建立内容索引失败: " + indexTask.getException().getMessage());
+        });
+
+        controller.getThreadPool().submitBackgroundTask(indexTask);
+    }
+
     public TreeItem<Path> createTreeItem(Path path) {
         TreeItem<Path> item = new TreeItem<>(path);
         item.setExpanded(false);
@@ -0,0 +1,460 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 按目录建立的三元组（trigram）倒排索引，用于在内容搜索前快速缩小候选文件范围。
+ * 索引基于折叠大小写后的原始字节，与 ContentMatcher 的多编码字面量一致；
+ * 倒排表按文档号差值做变长编码压缩。文件变化通过大小和修改时间检测：
+ * 变化的文件标记删除后追加为新文档，删除比例过高时整体重建。
+ */
+public class TrigramIndex {
+    // 已建立的索引，按根目录登记
+    private static final Map<Path, TrigramIndex> INDEXES = new ConcurrentHashMap<>();
+
+    // 超过该大小的文件不建立索引，查询时始终作为候选
+    private static final long MAX_INDEXED_FILE_SIZE = 16L * 1024 * 1024;
+
+    // 每批并行提取的文件数
+    private static final int BATCH_SIZE = 4096;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 索引中的一个文件
+     */
+    public static final class IndexedFile {
+        private final Path path;
+        private final long size;
+        private final long modifiedMillis;
+        private final boolean indexed;
+
+        IndexedFile(Path path, long size, long modifiedMillis, boolean indexed) {
+            this.path = path;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.indexed = indexed;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * 单个三元组的倒排表，文档号递增，按差值变长编码
+     */
+    private static final class PostingList {
+        byte[] data = new byte[8];
+        int length = 0;
+        int lastDoc = -1;
+
+        void add(int doc) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int delta = doc - lastDoc;
+            lastDoc = doc;
+            while (delta >= 0x80) {
+                data[length++] = (byte) (delta | 0x80);
+                delta >>>= 7;
+            }
+            data[length++] = (byte) delta;
+        }
+
+        void decodeInto(BitSet out) {
+            int doc = -1;
+            int i = 0;
+            while (i < length) {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[i++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += value;
+                out.set(doc);
+            }
+        }
+    }
+
+    private final Path root;
+    private final BiPredicate<Path, BasicFileAttributes> fileFilter;
+
+    private final List<IndexedFile> docs = new ArrayList<>();
+    private final Map<Path, Integer> docByPath = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final BitSet unindexed = new BitSet();
+    private final Map<Integer, PostingList> postings = new HashMap<>();
+
+    // 最近一次刷新的统计
+    private long lastRefreshBytes = 0;
+    private long lastRefreshFiles = 0;
+    private long lastRefreshNanos = 0;
+
+    private TrigramIndex(Path root, BiPredicate<Path, BasicFileAttributes> fileFilter) {
+        this.root = root;
+        this.fileFilter = fileFilter;
+    }
+
+    /**
+     * 获取或创建指定目录的索引（创建后需调用 refresh 才会有内容）
+     */
+    public static TrigramIndex getOrCreate(Path root) {
+        return INDEXES.computeIfAbsent(root.toAbsolutePath().normalize(),
+                r -> new TrigramIndex(r, TextFileDetector::isText));
+    }
+
+    /**
+     * 查找覆盖指定目录的索引（索引根为该目录本身或其上级），没有则返回null
+     */
+    public static TrigramIndex findFor(Path dir) {
+        Path normalized = dir.toAbsolutePath().normalize();
+        for (Path candidate = normalized; candidate != null; candidate = candidate.getParent()) {
+            TrigramIndex index = INDEXES.get(candidate);
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 移除指定目录的索引
+     */
+    public static void remove(Path root) {
+        INDEXES.remove(root.toAbsolutePath().normalize());
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 根据文件大小和修改时间增量更新索引，首次调用即完整建立索引
+     */
+    public synchronized void refresh(BooleanSupplier cancelCheck) throws IOException {
+        long start = System.nanoTime();
+        Set<Path> seen = new HashSet<>();
+        List<IndexedFile> pending = new ArrayList<>();
+        WalkPolicy policy = WalkPolicy.forSearch();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                // 与搜索使用相同的剪枝规则，被跳过的目录不会进入索引
+                return cancelCheck.getAsBoolean() ? FileVisitResult.TERMINATE : policy.checkDirectory(dir, attrs, root);
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile() || !fileFilter.test(file, attrs)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                seen.add(file);
+
+                long size = attrs.size();
+                long modified = attrs.lastModifiedTime().toMillis();
+                Integer id = docByPath.get(file);
+                if (id != null) {
+                    IndexedFile doc = docs.get(id);
+                    if (doc.size == size && doc.modifiedMillis == modified) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    deleted.set(id);
+                }
+                pending.add(new IndexedFile(file, size, modified, size <= MAX_INDEXED_FILE_SIZE));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        if (cancelCheck.getAsBoolean()) {
+            return;
+        }
+
+        // 已不存在的文件
+        Iterator<Map.Entry<Path, Integer>> iterator = docByPath.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Integer> entry = iterator.next();
+            if (!seen.contains(entry.getKey())) {
+                deleted.set(entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        // 删除比例过高时整体重建，回收倒排表空间
+        if (!docs.isEmpty() && deleted.cardinality() * 2 > docs.size()) {
+            clear();
+            refresh(cancelCheck);
+            return;
+        }
+
+        long bytes = indexFiles(pending, cancelCheck);
+
+        lastRefreshBytes = bytes;
+        lastRefreshFiles = pending.size();
+        lastRefreshNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * 并行提取三元组，再按文档号顺序追加到倒排表
+     */
+    private long indexFiles(List<IndexedFile> files, BooleanSupplier cancelCheck) throws IOException {
+        ExecutorService executor = ThreadPoolManager.getInstance().getSearchExecutor();
+        int workers = FileUtils.recommendedIoParallelism(root);
+        AtomicLong bytesRead = new AtomicLong();
+
+        for (int batchStart = 0; batchStart < files.size(); batchStart += BATCH_SIZE) {
+            if (cancelCheck.getAsBoolean()) {
+                return bytesRead.get();
+            }
+
+            List<IndexedFile> batch = files.subList(batchStart, Math.min(files.size(), batchStart + BATCH_SIZE));
+            int[][] trigrams = new int[batch.size()][];
+            // 取消后未处理的文件不追加到文档表，下次刷新时重新加入
+            boolean[] processed = new boolean[batch.size()];
+            AtomicInteger next = new AtomicInteger();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(() -> {
+                    TrigramExtractor extractor = new TrigramExtractor();
+                    for (int i = next.getAndIncrement(); i < trigrams.length; i = next.getAndIncrement()) {
+                        IndexedFile file = batch.get(i);
+                        if (cancelCheck.getAsBoolean()) {
+                            break;
+                        }
+                        processed[i] = true;
+                        if (!file.indexed) {
+                            continue;
+                        }
+                        try {
+                            trigrams[i] = extractor.extract(file.path);
+                            bytesRead.addAndGet(file.size);
+                        } catch (IOException e) {
+                            // 读取失败的文件按未索引处理，查询时始终作为候选
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    throw new IOException("建立索引失败: " + e.getMessage(), e);
+                }
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (!processed[i]) {
+                    continue;
+                }
+                IndexedFile file = batch.get(i);
+                int id = docs.size();
+                docs.add(file);
+                docByPath.put(file.path, id);
+                if (trigrams[i] == null) {
+                    unindexed.set(id);
+                    continue;
+                }
+                for (int key : trigrams[i]) {
+                    postings.computeIfAbsent(key, k -> new PostingList()).add(id);
+                }
+            }
+        }
+        return bytesRead.get();
+    }
+
+    /**
+     * 返回可能包含所有字面量的文件（位于 scope 目录下），调用方仍需逐个扫描确认。
+     * 每个字面量在任一候选编码下包含其全部三元组即视为可能命中；短于3字节的字面量不参与过滤。
+     */
+    public synchronized List<IndexedFile> query(List<String> literals, Path scope) {
+        BitSet result = null;
+        for (String literal : literals) {
+            BitSet literalDocs = docsForLiteral(literal);
+            if (literalDocs == null) {
+                continue;
+            }
+            if (result == null) {
+                result = literalDocs;
+            } else {
+                result.and(literalDocs);
+            }
+        }
+
+        if (result == null) {
+            result = new BitSet(docs.size());
+            result.set(0, docs.size());
+        } else {
+            result.or(unindexed);
+        }
+        result.andNot(deleted);
+
+        Path normalizedScope = scope.toAbsolutePath().normalize();
+        List<IndexedFile> candidates = new ArrayList<>();
+        for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+            IndexedFile doc = docs.get(id);
+            if (doc.path.startsWith(normalizedScope)) {
+                candidates.add(doc);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 单个字面量可能出现的文档集合，null表示无法过滤
+     */
+    private BitSet docsForLiteral(String literal) {
+        BitSet union = null;
+        for (Charset charset : ContentMatcher.getCandidateCharsets()) {
+            byte[] bytes = ContentMatcher.encodeFolded(literal, charset);
+            if (bytes == null) {
+                continue;
+            }
+            if (bytes.length < 3) {
+                return null;
+            }
+
+            BitSet docsForForm = null;
+            for (int i = 0; i + 2 < bytes.length; i++) {
+                int key = ((bytes[i] & 0xFF) << 16) | ((bytes[i + 1] & 0xFF) << 8) | (bytes[i + 2] & 0xFF);
+                PostingList list = postings.get(key);
+                BitSet docsForKey = new BitSet(docs.size());
+                if (list != null) {
+                    list.decodeInto(docsForKey);
+                }
+                if (docsForForm == null) {
+                    docsForForm = docsForKey;
+                } else {
+                    docsForForm.and(docsForKey);
+                }
+                if (docsForForm.isEmpty()) {
+                    break;
+                }
+            }
+
+            if (union == null) {
+                union = docsForForm;
+            } else {
+                union.or(docsForForm);
+            }
+        }
+        return union;
+    }
+
+    private void clear() {
+        docs.clear();
+        docByPath.clear();
+        deleted.clear();
+        unindexed.clear();
+        postings.clear();
+    }
+
+    /**
+     * 倒排表占用的字节数（估算）
+     */
+    public synchronized long getIndexSizeBytes() {
+        long size = (long) docs.size() * 48;
+        for (PostingList list : postings.values()) {
+            size += list.length + 24;
+        }
+        return size;
+    }
+
+    /**
+     * 索引规模和最近一次刷新吞吐量的摘要
+     */
+    public synchronized String getStatsSummary() {
+        double seconds = Math.max(lastRefreshNanos / 1e9, 0.001);
+        return String.format("索引 %d 个文件, %d 个三元组, 占用 %s | 最近更新 %d 个文件 (%s), %.1f 秒, %s/秒",
+                docs.size() - deleted.cardinality(),
+                postings.size(),
+                FileUtils.formatSize(getIndexSizeBytes()),
+                lastRefreshFiles,
+                FileUtils.formatSize(lastRefreshBytes),
+                seconds,
+                FileUtils.formatSize((long) (lastRefreshBytes / seconds)));
+    }
+
+    /**
+     * 单个线程使用的三元组提取器，复用 2^24 位的去重位图
+     */
+    private static final class TrigramExtractor {
+        private final long[] seen = new long[1 << 18];
+        private int[] keys = new int[4096];
+        private int count;
+
+        int[] extract(Path file) throws IOException {
+            count = 0;
+            ByteBuffer buffer = BufferPool.getInstance().acquire(READ_BUFFER_SIZE);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int window = 0;
+                long position = 0;
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        window = ((window << 8) | ContentMatcher.fold(buffer.get())) & 0xFFFFFF;
+                        if (++position >= 3) {
+                            add(window);
+                        }
+                    }
+                    buffer.clear();
+                }
+            } finally {
+                BufferPool.getInstance().release(buffer);
+                for (int i = 0; i < count; i++) {
+                    seen[keys[i] >>> 6] &= ~(1L << keys[i]);
+                }
+            }
+            int[] result = Arrays.copyOf(keys, count);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private void add(int key) {
+            long bit = 1L << key;
+            int slot = key >>> 6;
+            if ((seen[slot] & bit) != 0) {
+                return;
+            }
+            seen[slot] |= bit;
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = key;
+        }
+    }
+}
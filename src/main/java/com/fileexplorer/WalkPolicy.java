@@ -0,0 +1,274 @@
+package com.fileexplorer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 递归遍历的剪枝策略：跳过伪文件系统（/proc、/sys 等）、可选跳过网络挂载或不跨文件系统，
+ * 跳过忽略列表中的目录名和通配符排除项。在 preVisitDirectory 中调用 {@link #checkDirectory}，
+ * 被排除的子树不会被进入。
+ * <p>
+ * 文件系统只在设备号变化处（即挂载点）查询一次 FileStore，普通目录不产生额外I/O。
+ * 实例带有遍历状态，一个实例只用于一次（可以依次遍历多个根目录的）遍历。
+ * <p>
+ * 搜索、计算大小和复制三组预设可在 ~/.fileexplorer/walk-policy.properties 中修改（首次使用时写入默认值），
+ * 键为 预设名.选项，例如 copy.oneFileSystem=true、search.ignoredNames=.git,node_modules、
+ * size.exclude=*.vmdk；文件修改后对之后开始的遍历生效。
+ */
+public class WalkPolicy {
+    // 内核伪文件系统，遍历没有意义，且读取可能阻塞或产生大量错误
+    static final Set<String> PSEUDO_FS_TYPES = Set.of(
+            "proc", "sysfs", "devtmpfs", "devpts", "cgroup", "cgroup2", "securityfs", "debugfs", "tracefs",
+            "pstore", "bpf", "configfs", "fusectl", "mqueue", "hugetlbfs", "autofs", "binfmt_misc",
+            "efivarfs", "rpc_pipefs", "nsfs", "selinuxfs", "devfs", "fdescfs"
+    );
+
+    // 搜索时默认忽略的目录名（版本库元数据和构建产物）
+    static final Set<String> DEFAULT_IGNORED_NAMES = Set.of(
+            ".git", ".svn", ".hg", "node_modules", "target", "__pycache__", ".gradle", ".idea"
+    );
+
+    private static final Path CONFIG_FILE = Paths.get(System.getProperty("user.home"), ".fileexplorer",
+            "walk-policy.properties");
+    // 预设的默认值，配置文件中的同名键覆盖
+    private static final Properties DEFAULTS = new Properties();
+    static {
+        for (String preset : new String[]{"search", "size", "copy"}) {
+            DEFAULTS.setProperty(preset + ".skipPseudoFileSystems", "true");
+            DEFAULTS.setProperty(preset + ".skipNetworkFileSystems", String.valueOf(!preset.equals("copy")));
+            DEFAULTS.setProperty(preset + ".oneFileSystem", "false");
+            DEFAULTS.setProperty(preset + ".ignoredNames",
+                    preset.equals("search") ? String.join(",", new TreeSet<>(DEFAULT_IGNORED_NAMES)) : "");
+            DEFAULTS.setProperty(preset + ".exclude", "");
+        }
+    }
+    private static Properties config;
+    private static long configModified = -1;
+
+    private boolean skipPseudoFileSystems = true;
+    private boolean skipNetworkFileSystems = false;
+    private boolean oneFileSystem = false;
+    private final Set<String> ignoredNames = new HashSet<>();
+    private final List<GlobMatcher> exclusions = new ArrayList<>();
+
+    // 设备号 -> 是否跳过，只在挂载点处计算
+    private final Map<String, Boolean> deviceDecisions = new HashMap<>();
+    private String rootDevice;
+    // 记录被跳过的目录（复制和移动时需要告知用户；搜索时跳过的目录很多，不记录）
+    private boolean recordSkipped = false;
+    private final List<Path> skippedDirectories = new ArrayList<>();
+
+    /**
+     * 搜索和索引：默认跳过伪文件系统、网络挂载和默认忽略的目录名
+     */
+    public static WalkPolicy forSearch() {
+        return configured("search");
+    }
+
+    /**
+     * 计算文件夹大小：默认跳过伪文件系统和网络挂载
+     */
+    public static WalkPolicy forSize() {
+        return configured("size");
+    }
+
+    /**
+     * 复制和移动：默认只跳过伪文件系统，用户数据（包括 .git 等）必须完整复制；跳过的目录被记录
+     */
+    public static WalkPolicy forCopy() {
+        WalkPolicy policy = configured("copy");
+        policy.recordSkipped = true;
+        return policy;
+    }
+
+    private static WalkPolicy configured(String preset) {
+        Properties settings = loadConfig();
+        WalkPolicy policy = new WalkPolicy();
+        policy.setSkipPseudoFileSystems(Boolean.parseBoolean(settings.getProperty(preset + ".skipPseudoFileSystems")));
+        policy.setSkipNetworkFileSystems(Boolean.parseBoolean(settings.getProperty(preset + ".skipNetworkFileSystems")));
+        policy.setOneFileSystem(Boolean.parseBoolean(settings.getProperty(preset + ".oneFileSystem")));
+        for (String name : splitList(settings.getProperty(preset + ".ignoredNames"))) {
+            policy.addIgnoredName(name);
+        }
+        for (String glob : splitList(settings.getProperty(preset + ".exclude"))) {
+            policy.addExclusion(glob);
+        }
+        return policy;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        if (value != null) {
+            for (String item : value.split(",")) {
+                if (!item.trim().isEmpty()) {
+                    items.add(item.trim());
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 读取配置文件（只在文件修改后重新读取）；不存在时写入默认值，读取失败时使用默认值
+     */
+    private static synchronized Properties loadConfig() {
+        try {
+            if (!Files.exists(CONFIG_FILE)) {
+                Files.createDirectories(CONFIG_FILE.getParent());
+                try (Writer writer = Files.newBufferedWriter(CONFIG_FILE, StandardCharsets.UTF_8)) {
+                    DEFAULTS.store(writer, "FileExplorer walk policies: search, size, copy");
+                }
+            }
+            long modified = Files.getLastModifiedTime(CONFIG_FILE).toMillis();
+            if (config == null || modified != configModified) {
+                Properties loaded = new Properties(DEFAULTS);
+                try (Reader reader = Files.newBufferedReader(CONFIG_FILE, StandardCharsets.UTF_8)) {
+                    loaded.load(reader);
+                }
+                config = loaded;
+                configModified = modified;
+            }
+        } catch (IOException e) {
+            System.err.println("读取遍历设置失败，使用默认值: " + e.getMessage());
+            if (config == null) {
+                config = new Properties(DEFAULTS);
+            }
+        }
+        return config;
+    }
+
+    public void setSkipPseudoFileSystems(boolean skip) {
+        this.skipPseudoFileSystems = skip;
+    }
+
+    public void setSkipNetworkFileSystems(boolean skip) {
+        this.skipNetworkFileSystems = skip;
+    }
+
+    /**
+     * 不跨越挂载点，只遍历与根目录相同的文件系统
+     */
+    public void setOneFileSystem(boolean oneFileSystem) {
+        this.oneFileSystem = oneFileSystem;
+    }
+
+    public void addIgnoredName(String name) {
+        ignoredNames.add(name);
+    }
+
+    /**
+     * 添加通配符排除项，与目录名或完整路径匹配（不区分大小写）
+     */
+    public void addExclusion(String glob) {
+        exclusions.add(GlobMatcher.compile(glob));
+    }
+
+    /**
+     * 在 preVisitDirectory 中调用；根目录本身总是进入
+     */
+    public FileVisitResult checkDirectory(Path dir, BasicFileAttributes attrs, Path startDir) {
+        String device = deviceOf(attrs);
+        if (dir.equals(startDir)) {
+            rootDevice = device;
+            return FileVisitResult.CONTINUE;
+        }
+
+        Path name = dir.getFileName();
+        if (name != null && ignoredNames.contains(name.toString())) {
+            return skip(dir);
+        }
+        if (isExcluded(dir)) {
+            return skip(dir);
+        }
+
+        // 设备号与根目录相同说明没有跨越挂载点，不需要再检查文件系统类型
+        if (device == null || device.equals(rootDevice)) {
+            return FileVisitResult.CONTINUE;
+        }
+        if (oneFileSystem) {
+            return skip(dir);
+        }
+        Boolean skip = deviceDecisions.computeIfAbsent(device, key -> shouldSkipFileStore(dir));
+        return skip ? skip(dir) : FileVisitResult.CONTINUE;
+    }
+
+    /**
+     * 被跳过、没有进入的目录（只有复制预设记录）
+     */
+    public List<Path> getSkippedDirectories() {
+        return skippedDirectories;
+    }
+
+    private FileVisitResult skip(Path dir) {
+        if (recordSkipped) {
+            skippedDirectories.add(dir);
+        }
+        return FileVisitResult.SKIP_SUBTREE;
+    }
+
+    /**
+     * 文件或目录是否命中通配符排除项
+     */
+    public boolean isExcluded(Path path) {
+        if (exclusions.isEmpty()) {
+            return false;
+        }
+        String fullPath = path.toString();
+        int nameStart = fullPath.lastIndexOf(File.separatorChar) + 1;
+        for (GlobMatcher exclusion : exclusions) {
+            if (exclusion.matches(fullPath, nameStart, fullPath.length()) || exclusion.matches(fullPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean shouldSkipFileStore(Path dir) {
+        try {
+            FileStore store = Files.getFileStore(dir);
+            String type = store.type().toLowerCase(Locale.ROOT);
+            if (skipPseudoFileSystems && PSEUDO_FS_TYPES.contains(type)) {
+                return true;
+            }
+            return skipNetworkFileSystems && FileUtils.NETWORK_FS_TYPES.contains(type);
+        } catch (IOException e) {
+            // 无法确定文件系统类型时保守地跳过
+            return true;
+        }
+    }
+
+    /**
+     * 从 fileKey 中取设备号（Unix 上形如 "(dev=803,ino=1234)"），其他平台返回null
+     */
+    private static String deviceOf(BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        if (key == null) {
+            return null;
+        }
+        String text = key.toString();
+        int start = text.indexOf("dev=");
+        if (start < 0) {
+            return null;
+        }
+        int end = text.indexOf(',', start);
+        return end < 0 ? text.substring(start + 4) : text.substring(start + 4, end);
+    }
+}
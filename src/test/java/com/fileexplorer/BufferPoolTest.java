@@ -0,0 +1,169 @@
+package com.fileexplorer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 缓冲池压力测试：并发借还、以及各条I/O路径被取消或中断后，借出的字节数都应回到测试前的值
+ */
+class BufferPoolTest {
+    private static final int THREADS = 8;
+    private static final long MAX_POOLED_BYTES = 256L * 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final BufferPool pool = BufferPool.getInstance();
+    private long baseline;
+
+    @BeforeEach
+    void recordBaseline() {
+        baseline = pool.getOutstandingBytes();
+    }
+
+    @Test
+    void concurrentAcquireAndReleaseLeavesNothingOutstanding() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                List<ByteBuffer> held = new ArrayList<>();
+                for (int i = 0; i < 20000; i++) {
+                    // 偶尔请求超过最大一档的大小（临时堆缓冲区）
+                    int size = 1 + random.nextInt(random.nextInt(50) == 0 ? 6 * 1024 * 1024 : 1024 * 1024);
+                    ByteBuffer buffer = pool.acquire(size);
+                    assertEquals(size, buffer.limit());
+                    assertEquals(0, buffer.position());
+                    buffer.put(size - 1, (byte) 1);
+                    held.add(buffer);
+                    // 同时持有若干个，在不同线程之间交错归还
+                    if (held.size() > 4 || random.nextBoolean()) {
+                        pool.release(held.remove(random.nextInt(held.size())));
+                    }
+                }
+                held.forEach(pool::release);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        shutdown(executor);
+
+        assertEquals(baseline, pool.getOutstandingBytes());
+        assertTrue(pool.getPooledBytes() <= MAX_POOLED_BYTES);
+        assertTrue(pool.getHitRate() > 0);
+    }
+
+    @Test
+    void interruptedContentScansReleaseTheirBuffers() throws Exception {
+        List<Path> files = createFiles(16, 8 * 1024 * 1024);
+        ContentMatcher matcher = ContentMatcher.compile("not-present", GlobMatcher.compile("*not-present*"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int round = 0; round < 8; round++) {
+            for (Path file : files) {
+                futures.add(executor.submit(() -> matcher.matches(file)));
+            }
+        }
+        Thread.sleep(50);
+        futures.forEach(future -> future.cancel(true));
+        shutdown(executor);
+
+        assertEquals(baseline, pool.getOutstandingBytes());
+    }
+
+    @Test
+    void cancelledCopiesReleaseTheirBuffers() throws Exception {
+        List<Path> files = createFiles(THREADS, 32 * 1024 * 1024);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            boolean sparse = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                FileCopier copier = new FileCopier();
+                // 校验和稀疏检测都走双缓冲流水线
+                copier.setVerification(FileCopier.Verification.CRC32C);
+                copier.setSparse(sparse);
+                copier.setCancelCheck(cancelled::get);
+                try {
+                    copier.copy(file, file.resolveSibling(file.getFileName() + ".copy"));
+                } catch (CancellationException | IOException e) {
+                    // 取消或中断是预期结果
+                }
+                return null;
+            }));
+        }
+        Thread.sleep(30);
+        cancelled.set(true);
+        // 一部分中断，一部分只靠取消检查退出
+        for (int i = 0; i < futures.size(); i += 2) {
+            futures.get(i).cancel(true);
+        }
+        shutdown(executor);
+
+        assertEquals(baseline, pool.getOutstandingBytes());
+    }
+
+    @Test
+    void cancelledIndexRefreshReleasesItsBuffers() throws Exception {
+        createFiles(200, 64 * 1024);
+        TrigramIndex index = TrigramIndex.getOrCreate(dir);
+        try {
+            AtomicInteger checks = new AtomicInteger();
+            index.refresh(() -> checks.incrementAndGet() > 50);
+            index.refresh(() -> false);
+        } finally {
+            TrigramIndex.remove(dir);
+        }
+
+        assertEquals(baseline, pool.getOutstandingBytes());
+    }
+
+    /**
+     * 生成文本文件（三元组索引只收录文本文件）
+     */
+    private List<Path> createFiles(int count, int size) throws IOException {
+        Random random = new Random(count);
+        byte[] data = new byte[size];
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < size; j++) {
+                data[j] = j % 80 == 79 ? (byte) '\n' : (byte) ('a' + random.nextInt(26));
+            }
+            Path file = dir.resolve("file-" + i + ".txt");
+            Files.write(file, data);
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static void shutdown(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+    }
+}
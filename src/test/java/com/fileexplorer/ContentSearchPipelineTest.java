@@ -0,0 +1,67 @@
+package com.fileexplorer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ContentSearchPipelineTest {
+
+    @Test
+    void hitsArePublishedInWalkOrder() throws Exception {
+        List<Path> hits = run(path -> number(path) % 3 == 0, 4, 1000);
+
+        assertEquals(334, hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            assertEquals(i * 3, number(hits.get(i)));
+        }
+    }
+
+    @Test
+    void matcherFailureCountsAsMissAndDoesNotStallThePipeline() throws Exception {
+        // 单个扫描线程：异常若终止扫描线程，遍历线程会在队列满后一直阻塞
+        List<Path> hits = run(path -> {
+            if (number(path) % 100 == 7) {
+                throw new IllegalStateException("unreadable");
+            }
+            return true;
+        }, 1, 1000);
+
+        assertEquals(990, hits.size());
+        assertEquals(8, number(hits.get(7)));
+    }
+
+    private static List<Path> run(java.util.function.Predicate<Path> matcher, int scanners, int files)
+            throws Exception {
+        List<Path> hits = new ArrayList<>();
+        ContentSearchPipeline pipeline = new ContentSearchPipeline(matcher, hits::add, () -> false,
+                Integer.MAX_VALUE, scanners);
+        ExecutorService walker = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> walk = walker.submit(() -> {
+                pipeline.start();
+                for (int i = 0; i < files; i++) {
+                    pipeline.offer(Path.of("file-" + i), 1);
+                }
+                pipeline.finish();
+                return null;
+            });
+            walk.get(30, TimeUnit.SECONDS);
+        } finally {
+            pipeline.stop();
+            walker.shutdownNow();
+        }
+        return hits;
+    }
+
+    private static int number(Path path) {
+        return Integer.parseInt(path.getFileName().toString().substring("file-".length()));
+    }
+}
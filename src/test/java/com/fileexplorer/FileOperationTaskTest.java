@@ -0,0 +1,51 @@
+package com.fileexplorer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileOperationTaskTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void extractsEntryWhileArchiveIsOpenElsewhere() throws Exception {
+        Path archive = createArchive();
+
+        // 解压任务已按 URI 打开同一个压缩包
+        try (FileSystem open = FileSystems.newFileSystem(FileOperationTask.archiveUri(archive), Collections.emptyMap())) {
+            Path extracted = FileOperationTask.extractEntryToTemp(archive, "docs/readme.txt");
+            assertArrayEquals(new byte[] {'h', 'i'}, Files.readAllBytes(extracted));
+        }
+    }
+
+    @Test
+    void unsupportedArchiveIsReportedAsIOException() throws Exception {
+        Path notArchive = dir.resolve("plain.txt");
+        Files.writeString(notArchive, "not a zip");
+
+        assertThrows(IOException.class, () -> FileOperationTask.extractEntryToTemp(notArchive, "a.txt"));
+    }
+
+    private Path createArchive() throws IOException {
+        Path archive = dir.resolve("archive.zip");
+        try (OutputStream out = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("docs/readme.txt"));
+            zip.write(new byte[] {'h', 'i'});
+            zip.closeEntry();
+        }
+        return archive;
+    }
+}
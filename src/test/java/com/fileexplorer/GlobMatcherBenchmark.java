@@ -0,0 +1,127 @@
+package com.fileexplorer;
+
+import java.util.Random;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * 文件名匹配的耗时对比（纳秒/次）：GlobMatcher 直接匹配完整路径中的文件名区间，
+ * 与原来的做法（取文件名字符串后用转换得到的正则表达式匹配、或转小写后 contains）。
+ * 构建中没有 JMH，这里用预热加多轮取最好成绩的方式近似。不是单元测试，手动运行：
+ * java -cp ... com.fileexplorer.GlobMatcherBenchmark [文件名数量]
+ */
+public class GlobMatcherBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    private static final String[] WORDS = {"report", "final", "draft", "IMG", "backup", "notes", "data", "v2", "副本"};
+    private static final String[] EXTENSIONS = {".txt", ".pdf", ".JPG", ".log", ".docx", ".tar.gz", ""};
+
+    // 防止匹配结果被优化掉
+    private static long sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] paths = createPaths(count);
+        System.out.printf("%d 个路径%n", count);
+
+        for (String glob : new String[] {"*report*", "*.txt", "file-??.log", "IMG_[0-9]*.jpg", "*a*a*a*a*a*a*b"}) {
+            GlobMatcher matcher = GlobMatcher.compile(glob);
+            Pattern regex = compileWildcardPattern(glob);
+            double globNanos = measure(paths, path -> {
+                int from = path.lastIndexOf('/') + 1;
+                return matcher.matches(path, from, path.length()) ? 1 : 0;
+            });
+            double regexNanos = measure(paths, path -> regex.matcher(fileName(path)).matches() ? 1 : 0);
+            System.out.printf("%-18s glob %6.1f ns  正则 %6.1f ns%n", glob, globNanos, regexNanos);
+        }
+
+        String literal = "Report";
+        GlobMatcher containing = GlobMatcher.containing(literal);
+        double globNanos = measure(paths, path -> {
+            int from = path.lastIndexOf('/') + 1;
+            return containing.matches(path, from, path.length()) ? 1 : 0;
+        });
+        String lower = literal.toLowerCase();
+        double containsNanos = measure(paths, path -> fileName(path).toLowerCase().contains(lower) ? 1 : 0);
+        System.out.printf("%-18s glob %6.1f ns  toLowerCase+contains %6.1f ns%n", "包含 " + literal, globNanos,
+                containsNanos);
+        System.out.println("命中合计 " + sink);
+    }
+
+    private static double measure(String[] paths, ToIntFunction<String> match) {
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            int hits = 0;
+            for (String path : paths) {
+                hits += match.applyAsInt(path);
+            }
+            long elapsed = System.nanoTime() - start;
+            sink += hits;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, (double) elapsed / paths.length);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 原来的文件名取法：每个文件生成一个新字符串
+     */
+    private static String fileName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * 改为 GlobMatcher 之前的转换：转义正则特殊字符，? 和 * 换成 . 和 .*，保留字符类，整体锚定并忽略大小写
+     */
+    private static Pattern compileWildcardPattern(String wildcard) {
+        StringBuilder regex = new StringBuilder("^");
+        for (int i = 0; i < wildcard.length(); i++) {
+            char c = wildcard.charAt(i);
+            int classEnd = c == '[' ? wildcard.indexOf(']', i + 2) : -1;
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (classEnd > 0) {
+                String body = wildcard.substring(i + 1, classEnd);
+                if (body.startsWith("!")) {
+                    body = "^" + body.substring(1);
+                }
+                regex.append('[').append(body).append(']');
+                i = classEnd;
+            } else if ("\\.+(){}[]|^$".indexOf(c) >= 0) {
+                regex.append('\\').append(c);
+            } else {
+                regex.append(c);
+            }
+        }
+        return Pattern.compile(regex.append('$').toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    private static String[] createPaths(int count) {
+        Random random = new Random(count);
+        String[] paths = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder path = new StringBuilder("/home/user/documents/project-").append(i % 50).append('/');
+            switch (random.nextInt(4)) {
+                case 0:
+                    path.append("IMG_").append(1000 + random.nextInt(9000));
+                    break;
+                case 1:
+                    path.append("file-").append(random.nextInt(100));
+                    break;
+                default:
+                    for (int w = random.nextInt(3) + 1; w > 0; w--) {
+                        path.append(WORDS[random.nextInt(WORDS.length)]).append(w > 1 ? "_" : "");
+                    }
+                    break;
+            }
+            path.append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+            paths[i] = path.toString();
+        }
+        return paths;
+    }
+}
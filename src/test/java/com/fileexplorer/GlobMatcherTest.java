@@ -0,0 +1,150 @@
+package com.fileexplorer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class GlobMatcherTest {
+
+    private static boolean matches(String glob, String text) {
+        return GlobMatcher.compile(glob).matches(text);
+    }
+
+    @Test
+    void literalPatternMatchesWholeText() {
+        assertTrue(matches("report.txt", "report.txt"));
+        assertFalse(matches("report.txt", "report.txt.bak"));
+        assertFalse(matches("report.txt", "old-report.txt"));
+        assertFalse(matches("report", "repor"));
+    }
+
+    @Test
+    void starIsAnchoredAtTheOtherEnd() {
+        assertTrue(matches("a*", "abc"));
+        assertFalse(matches("a*", "bac"));
+        assertTrue(matches("*c", "abc"));
+        assertFalse(matches("*c", "acb"));
+        assertTrue(matches("a*c", "abbbc"));
+        assertFalse(matches("a*c", "abbbcd"));
+        // 首尾片段不能重叠使用同一个字符
+        assertFalse(matches("ab*ba", "aba"));
+        assertTrue(matches("ab*ba", "abba"));
+    }
+
+    @Test
+    void middleSegmentsMatchInOrder() {
+        assertTrue(matches("*a*b*c*", "xaxbxcx"));
+        assertFalse(matches("*a*b*c*", "xcxbxax"));
+        assertTrue(matches("*aab*", "aaab"));
+        assertTrue(matches("*a*a*a*a*a*a*b", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaab"));
+        assertFalse(matches("*a*a*a*a*a*a*b", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"));
+    }
+
+    @Test
+    void questionMarkMatchesExactlyOneCharacter() {
+        assertTrue(matches("?", "x"));
+        assertFalse(matches("?", ""));
+        assertFalse(matches("?", "xy"));
+        assertTrue(matches("a?c", "abc"));
+        assertFalse(matches("a?c", "ac"));
+        assertTrue(matches("*?", "x"));
+        assertFalse(matches("*??", "x"));
+        assertTrue(matches("file-??.log", "file-01.log"));
+        assertTrue(matches("?文件", "新文件"));
+    }
+
+    @Test
+    void emptySegments() {
+        assertTrue(matches("", ""));
+        assertFalse(matches("", "a"));
+        assertTrue(matches("*", ""));
+        assertTrue(matches("*", "anything"));
+        assertTrue(matches("**", ""));
+        assertTrue(matches("a**b", "ab"));
+        assertTrue(matches("a**b", "axyzb"));
+        assertTrue(matches("***a***", "a"));
+        assertFalse(matches("***a***", "b"));
+    }
+
+    @Test
+    void caseIsFolded() {
+        assertTrue(matches("*.TXT", "notes.txt"));
+        assertTrue(matches("*.txt", "NOTES.TXT"));
+        assertTrue(matches("ÄPFEL*", "äpfel.doc"));
+        assertTrue(matches("[A-C]*", "beta"));
+        assertTrue(matches("[a-c]*", "BETA"));
+        assertFalse(matches("[!a-c]*", "Beta"));
+    }
+
+    @Test
+    void characterClasses() {
+        assertTrue(matches("file[0-9].txt", "file7.txt"));
+        assertFalse(matches("file[0-9].txt", "fileX.txt"));
+        assertTrue(matches("[!0-9]*", "x1"));
+        assertTrue(matches("[^0-9]*", "x1"));
+        assertFalse(matches("[^0-9]*", "1x"));
+        assertTrue(matches("[]]", "]"));
+        // 没有对应的 ] 时 [ 按普通字符处理
+        assertTrue(matches("a[b", "a[b"));
+    }
+
+    @Test
+    void matchesSubRange() {
+        String path = "/home/user/Report-2024.PDF";
+        int from = path.lastIndexOf('/') + 1;
+        assertTrue(GlobMatcher.compile("report-*.pdf").matches(path, from, path.length()));
+        assertFalse(GlobMatcher.compile("home*").matches(path, from, path.length()));
+    }
+
+    @Test
+    void containingTreatsInputAsLiteral() {
+        GlobMatcher matcher = GlobMatcher.containing("a*b?");
+        assertTrue(matcher.matches("xxA*B?yy"));
+        assertFalse(matcher.matches("axxb?"));
+        assertTrue(GlobMatcher.containing("").matches("anything"));
+    }
+
+    @Test
+    void agreesWithRegexReference() {
+        Random random = new Random(29);
+        char[] patternChars = {'a', 'b', 'A', '*', '?'};
+        char[] textChars = {'a', 'b', 'B', 'c'};
+        for (int n = 0; n < 100_000; n++) {
+            String glob = randomString(random, patternChars, 8);
+            String text = randomString(random, textChars, 12);
+            assertEquals(toRegex(glob).matcher(text).matches(), matches(glob, text),
+                    "模式 " + glob + " 文本 " + text);
+        }
+    }
+
+    private static String randomString(Random random, char[] alphabet, int maxLength) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 不含字符类的通配符对应的正则表达式
+     */
+    private static Pattern toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,157 @@
+package com.fileexplorer;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * 目录树复制的吞吐量对比（个/秒）：原来的单线程遍历逐个复制，与 TreeCopier 在不同在途文件数下的结果，
+ * 以及一批操作中多个目录树并发复制、共用一个在途上限的情况。
+ * 不是单元测试，手动运行：
+ * java -cp ... com.fileexplorer.TreeCopierBenchmark [工作目录] [文件数] [文件大小] [目录数]
+ */
+public class TreeCopierBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        Path work = args.length > 0 ? Paths.get(args[0]) : Files.createTempDirectory("tree-copier-bench");
+        int files = args.length > 1 ? Integer.parseInt(args[1]) : 30000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+        int dirs = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        Path source = work.resolve("source");
+        createTree(source, files, size, dirs);
+        System.out.printf("%d 个文件，每个 %d 字节，%d 个目录，工作目录 %s%n", files, size, dirs, work);
+        System.out.printf("按设备确定的在途文件数: %d%n", TreeCopier.recommendedParallelism(source, work.resolve("x")));
+
+        try {
+            // 预热：源文件刚写入，首轮的结果主要受页缓存和回写影响
+            copySequential(source, work.resolve("target"));
+            clearTargets(work);
+
+            report("单线程遍历（原实现）", files, () -> copySequential(source, work.resolve("target")), work);
+            for (int parallelism : new int[] {1, 4, 16}) {
+                report("TreeCopier 在途 " + parallelism, files, () -> {
+                    TreeCopier copier = new TreeCopier(new FileCopier());
+                    copier.setParallelism(parallelism);
+                    copier.copy(source, work.resolve("target"));
+                }, work);
+            }
+            report("4 个目录树并发，共用上限 8", files * 4, () -> copyConcurrently(source, work, 4, 8), work);
+        } finally {
+            deleteTree(work);
+            ThreadPoolManager.getInstance().shutdown();
+        }
+    }
+
+    private interface Run {
+        void run() throws Exception;
+    }
+
+    private static void report(String name, int files, Run run, Path work) throws Exception {
+        double best = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            clearTargets(work);
+            long start = System.nanoTime();
+            run.run();
+            best = Math.max(best, files / ((System.nanoTime() - start) / 1e9));
+        }
+        clearTargets(work);
+        System.out.printf("%-28s %,10.0f 个/秒%n", name, best);
+    }
+
+    /**
+     * 改为 TreeCopier 之前的目录复制：遍历线程逐个检查并创建目录、逐个复制文件
+     */
+    private static void copySequential(Path sourceDir, Path targetDir) throws IOException {
+        FileCopier copier = new FileCopier();
+        Files.walkFileTree(sourceDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Path target = targetDir.resolve(sourceDir.relativize(dir));
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                copier.copy(file, targetDir.resolve(sourceDir.relativize(file)));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 与批量操作相同：每个工作线程复制一个目录树，所有目录树共用一个在途上限
+     */
+    private static void copyConcurrently(Path sourceDir, Path work, int trees, int limit) throws Exception {
+        Semaphore inFlight = new Semaphore(limit);
+        FileCopier fileCopier = new FileCopier();
+        ExecutorService executor = Executors.newFixedThreadPool(trees);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < trees; i++) {
+                Path target = work.resolve("target-" + i);
+                futures.add(executor.submit(() -> {
+                    TreeCopier copier = new TreeCopier(fileCopier);
+                    copier.setInFlightLimit(inFlight);
+                    copier.copy(sourceDir, target);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void createTree(Path root, int files, int size, int dirs) throws IOException {
+        Random random = new Random(files);
+        byte[] data = new byte[size];
+        for (int d = 0; d < dirs; d++) {
+            Files.createDirectories(root.resolve("dir-" + d));
+        }
+        for (int i = 0; i < files; i++) {
+            random.nextBytes(data);
+            Files.write(root.resolve("dir-" + (i % dirs)).resolve("file-" + i), data);
+        }
+    }
+
+    private static void clearTargets(Path work) throws IOException {
+        try (Stream<Path> children = Files.list(work)) {
+            for (Path child : (Iterable<Path>) children::iterator) {
+                if (child.getFileName().toString().startsWith("target")) {
+                    deleteTree(child);
+                }
+            }
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.fileexplorer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TreeCopierTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * 记录同时在复制的文件数
+     */
+    private static final class CountingCopier extends FileCopier {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Override
+        public void copy(Path source, Path target) throws IOException {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+                super.copy(source, target);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    void copiesTreeWithTimesAndLinks() throws Exception {
+        Path source = dir.resolve("source");
+        Files.createDirectories(source.resolve("a/b"));
+        Files.write(source.resolve("a/b/file.txt"), new byte[] {1, 2, 3});
+        Files.createSymbolicLink(source.resolve("a/link"), Path.of("b/file.txt"));
+        FileTime old = FileTime.fromMillis(1_000_000_000_000L);
+        Files.setLastModifiedTime(source.resolve("a/b/file.txt"), old);
+        Files.setLastModifiedTime(source.resolve("a/b"), old);
+
+        Path target = dir.resolve("target");
+        TreeCopier copier = new TreeCopier(new FileCopier());
+        copier.copy(source, target);
+
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(target.resolve("a/b/file.txt")));
+        assertTrue(Files.isSymbolicLink(target.resolve("a/link")));
+        assertEquals(Path.of("b/file.txt"), Files.readSymbolicLink(target.resolve("a/link")));
+        assertEquals(old, Files.getLastModifiedTime(target.resolve("a/b/file.txt")));
+        assertEquals(old, Files.getLastModifiedTime(target.resolve("a/b")));
+        assertEquals(2, copier.getCopiedFiles());
+    }
+
+    @Test
+    void sharedLimitBoundsFilesInFlightAcrossTrees() throws Exception {
+        Path source = dir.resolve("source");
+        Files.createDirectories(source);
+        for (int i = 0; i < 50; i++) {
+            Files.write(source.resolve("file-" + i), new byte[100]);
+        }
+
+        int trees = 4;
+        int limit = 3;
+        Semaphore inFlight = new Semaphore(limit);
+        CountingCopier fileCopier = new CountingCopier();
+        ExecutorService executor = Executors.newFixedThreadPool(trees);
+        List<Future<TreeCopier>> futures = new ArrayList<>();
+        for (int i = 0; i < trees; i++) {
+            Path target = dir.resolve("target-" + i);
+            futures.add(executor.submit(() -> {
+                TreeCopier copier = new TreeCopier(fileCopier);
+                copier.setInFlightLimit(inFlight);
+                copier.copy(source, target);
+                return copier;
+            }));
+        }
+        for (Future<TreeCopier> future : futures) {
+            // 每个目录树只等待自己的文件，返回时已全部复制完成
+            assertEquals(50, future.get().getCopiedFiles());
+        }
+        executor.shutdown();
+
+        assertTrue(fileCopier.maxRunning.get() <= limit, "同时复制 " + fileCopier.maxRunning.get() + " 个文件");
+        assertEquals(limit, inFlight.availablePermits());
+    }
+}